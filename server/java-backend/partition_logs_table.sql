@@ -0,0 +1,55 @@
+-- SQL script to convert the logs table into monthly range partitions on created_at.
+-- Run once, with the backend stopped. Afterwards LogPartitionManager creates the coming
+-- months' partitions and rolls up and drops (or detaches) partitions past retention.
+
+BEGIN;
+
+ALTER TABLE logs RENAME TO logs_unpartitioned;
+
+-- A plain sequence instead of an identity column, which older Postgres versions reject on partitioned tables
+CREATE SEQUENCE IF NOT EXISTS logs_partitioned_id_seq;
+SELECT setval('logs_partitioned_id_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM logs_unpartitioned), false);
+
+-- No primary key: it would have to include created_at, which is null for rows logged before it existed
+CREATE TABLE logs (
+    id         bigint NOT NULL DEFAULT nextval('logs_partitioned_id_seq'),
+    product_id bigint REFERENCES products (id),
+    stock_id   bigint REFERENCES stocks (id),
+    user_id    bigint REFERENCES users (id),
+    quantity   integer,
+    log_info   varchar(255),
+    created_at timestamp(6)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE logs_partitioned_id_seq OWNED BY logs.id;
+
+-- Rows without a timestamp (and anything outside the monthly partitions) land here
+CREATE TABLE logs_default PARTITION OF logs DEFAULT;
+
+-- One partition per month that already has rows, plus the current and next month
+DO $$
+DECLARE
+    month date;
+BEGIN
+    FOR month IN
+        SELECT DISTINCT date_trunc('month', created_at)::date FROM logs_unpartitioned WHERE created_at IS NOT NULL
+        UNION
+        SELECT date_trunc('month', now())::date
+        UNION
+        SELECT (date_trunc('month', now()) + interval '1 month')::date
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF logs FOR VALUES FROM (%L) TO (%L)',
+                       'logs_y' || to_char(month, 'YYYY') || 'm' || to_char(month, 'MM'),
+                       month, (month + interval '1 month')::date);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_logs_id ON logs (id);
+CREATE INDEX idx_logs_stock ON logs (stock_id);
+CREATE INDEX idx_logs_user_product_created ON logs (user_id, product_id, created_at);
+
+INSERT INTO logs (id, product_id, stock_id, user_id, quantity, log_info, created_at)
+SELECT id, product_id, stock_id, user_id, quantity, log_info, created_at FROM logs_unpartitioned;
+
+DROP TABLE logs_unpartitioned;
+
+COMMIT;
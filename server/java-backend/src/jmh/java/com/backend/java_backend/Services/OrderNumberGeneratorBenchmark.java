@@ -0,0 +1,93 @@
+package com.backend.java_backend.Services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link OrderNumberGenerator#next()} against taking every number straight from a
+ * sequence, one round trip per order. Needs a disposable Postgres (benchmark.db.url, .username,
+ * .password; defaults to the local inventory database): it draws from order_number_seq and creates
+ * and drops its own order_number_bench_seq.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderNumberGeneratorBenchmark {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private OrderNumberGenerator generator;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/inventory"));
+        dataSource.setUsername(System.getProperty("benchmark.db.username", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.db.password", "1234"));
+        dataSource.setMaximumPoolSize(16);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS order_number_bench_seq");
+
+        generator = new OrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(generator, "blockSize", 1000);
+        generator.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS order_number_bench_seq");
+        dataSource.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String blockReserved() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String blockReservedContended() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String sequencePerNumber() {
+        return perNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String sequencePerNumberContended() {
+        return perNumber();
+    }
+
+    private String perNumber() {
+        Long value = jdbcTemplate.queryForObject("SELECT nextval('order_number_bench_seq')", Long.class);
+        return String.format("ORD-%s-%08d", LocalDate.now().format(DAY), value);
+    }
+}
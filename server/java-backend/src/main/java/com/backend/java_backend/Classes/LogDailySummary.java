@@ -0,0 +1,43 @@
+package com.backend.java_backend.Classes;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Per-day movement totals for one (user, product), kept after the raw log partition is dropped
+@Entity
+@Data
+@Table(name = "log_daily_summary",
+        uniqueConstraints = @UniqueConstraint(name = "uk_log_daily_summary", columnNames = {"day", "user_id", "product_id"}))
+public class LogDailySummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate day;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    private int movements;
+    private int adds;
+    private int updates;
+    private int deletes;
+
+    // Sum of the falls in the logged quantity over the day
+    private int consumed;
+
+    @Column(name = "min_quantity")
+    private Integer minQuantity;
+
+    @Column(name = "max_quantity")
+    private Integer maxQuantity;
+
+    // Quantity logged by the day's last movement
+    @Column(name = "closing_quantity")
+    private Integer closingQuantity;
+}
@@ -3,6 +3,8 @@ package com.backend.java_backend.Classes;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 @Entity
 @Table(name = "logs")
@@ -12,15 +14,15 @@ public class Logs {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", unique = false)
     private Product product;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "stock_id", nullable = true)
     private Stock stock;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", unique = false)
     private User user;
 
@@ -31,6 +33,10 @@ public class Logs {
     @Column(name = "log_info")
     private MovementLog movementLog = MovementLog.ADD;
 
+    // Null for logs written before movements were timestamped
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
     public enum MovementLog {
         ADD,
         DELETE,
@@ -1,4 +1,5 @@
 package com.backend.java_backend.Classes;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -6,8 +7,12 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_distributor", columnList = "distributor_id, id"),
+        @Index(name = "idx_products_category", columnList = "category, id")
+})
 @Data
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,13 +27,30 @@ public class Product {
     private double cost_price;
     private int mst;
     private int quantity;
+    // Owned by ReservationLedger and changed only through its conditional updates, never by saving the entity
+    @Column(name = "reserved_quantity", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int reserved;
+    @Column(name = "shipped_quantity", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int shipped;
     private LocalDateTime expiry_date;
     private String imageUrl;
+    // Owned by ImageUploadPipeline and changed only through its updates, never by saving the entity
+    @Column(name = "image_status", insertable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private ImageStatus imageStatus;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "distributor_id")
     private User distributor;
 
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum ImageStatus {
+        PENDING,
+        READY,
+        FAILED
+    }
 }
@@ -0,0 +1,48 @@
+package com.backend.java_backend.Classes;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One open alert per stock, raised and cleared by the reorder scan
+@Entity
+@Data
+@Table(name = "reorder_alerts", indexes = @Index(name = "idx_reorder_alerts_retailer", columnList = "retailer_id"))
+public class ReorderAlert {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stock_id", unique = true, nullable = false)
+    private Long stockId;
+
+    @Column(name = "retailer_id")
+    private Long retailerId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    private int quantity;
+    private int min_threshold;
+    private int mst;
+
+    @Enumerated(EnumType.STRING)
+    private Reason reason;
+
+    public enum Reason {
+        BELOW_THRESHOLD,
+        BELOW_MST,
+        BELOW_BOTH
+    }
+
+    // Id of the scan run that last saw this stock below threshold
+    @Column(name = "scan_run")
+    private Long scanRun;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
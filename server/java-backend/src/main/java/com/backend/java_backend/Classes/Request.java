@@ -1,13 +1,19 @@
 package com.backend.java_backend.Classes;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "requests")
+@Table(name = "requests", indexes = {
+        @Index(name = "idx_requests_retailer", columnList = "retailer_id, request_id"),
+        @Index(name = "idx_requests_distributor", columnList = "distributor_id, request_id"),
+        @Index(name = "idx_requests_product", columnList = "product_id")
+})
 @Data
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Request {
 
 
@@ -15,15 +21,15 @@ public class Request {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long requestId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "retailer_id")
     private User retailer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "distributor_id")
     private User distributor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
@@ -38,6 +44,10 @@ public class Request {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // When the request was accepted or rejected; accepted requests never ordered expire from it
+    @Column(name = "decided_at")
+    private LocalDateTime decidedAt;
+
     @Column(name = "request_status")
     @Enumerated(EnumType.STRING)
     private Status status = Status.PENDING;
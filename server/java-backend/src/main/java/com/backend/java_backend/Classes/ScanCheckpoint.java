@@ -0,0 +1,33 @@
+package com.backend.java_backend.Classes;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Progress of one key-range segment of a background scan, so a restart resumes where it stopped
+@Entity
+@Data
+@Table(name = "scan_checkpoints")
+public class ScanCheckpoint {
+    @Id
+    private String name;
+
+    @Column(name = "run_id")
+    private Long runId;
+
+    // Segment covers ids in (lowerKey, upperKey]
+    @Column(name = "lower_key")
+    private Long lowerKey;
+
+    @Column(name = "upper_key")
+    private Long upperKey;
+
+    @Column(name = "last_key")
+    private Long lastKey;
+
+    private boolean done;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -1,5 +1,6 @@
 package com.backend.java_backend.Classes;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -7,17 +8,21 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "stocks")
+@Table(name = "stocks", indexes = {
+        @Index(name = "idx_stocks_retailer", columnList = "retailer_id, id"),
+        @Index(name = "idx_stocks_product", columnList = "product_id, id")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Stock {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "retailer_id")
     private User retailer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
@@ -4,6 +4,7 @@ import com.backend.java_backend.Classes.User;
 import com.backend.java_backend.DTOs.LoginRequest;
 import com.backend.java_backend.DTOs.SignupRequest;
 import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Services.AgentAssignmentEngine;
 import com.backend.java_backend.Utils.JwtUtils;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -41,6 +42,9 @@ public class AuthController {
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private AgentAssignmentEngine agentAssignmentEngine;
+
     //http://localhost:3000/auth/signup
     @GetMapping("/test")
     public ResponseEntity<?> testCors() {
@@ -66,6 +70,9 @@ public class AuthController {
         user.setPhone(signupRequest.getPhoneNumber());
 
         userRepository.save(user);
+        if (user.getRole() == User.Role.DELIVERY) {
+            agentAssignmentEngine.addAgent(user);
+        }
         logger.info("User registered successfully: {}", user);
         return ResponseEntity.status(HttpStatus.CREATED).body("User registered successfully");
     }
@@ -2,10 +2,13 @@ package com.backend.java_backend.Controllers.Delivery;
 
 import com.backend.java_backend.Classes.Order;
 import com.backend.java_backend.Services.OrderService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.DTOs.OrderTransitionResultDTO;
+import com.backend.java_backend.DTOs.OrderViewDTO;
+import com.backend.java_backend.Utils.Keyset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,20 +26,41 @@ public class DeliveryAgentOrderController {
     }
 
     @GetMapping("/view-orders")
-    public ResponseEntity<?> viewOrders(){
-        String username =  SecurityContextHolder.getContext().getAuthentication().getName();
-        List<Order> orderList = orderService.findAllByDeliveryAgent(username);
+    public ResponseEntity<?> viewOrders(@RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit){
+        Long userId = UserPrincipal.currentUserId();
+        List<Order> orderList;
+        try {
+            orderList = orderService.findPageByDeliveryAgent(userId, Keyset.after(cursor), Keyset.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         if(orderList.isEmpty()){
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Orders not found");
         }
-        return ResponseEntity.status(HttpStatus.OK).body(orderList);
+        return Keyset.page(orderList, limit, Order::getOrderId, OrderViewDTO::from);
+    }
+
+    // Move many of the agent's orders to the same status in one call, e.g. a whole van on dispatch
+    @PostMapping("/change-order-statuses")
+    public ResponseEntity<?> changeOrderStatuses(@RequestParam String status, @RequestBody List<Long> orderIds){
+        if (orderIds == null || orderIds.isEmpty()) {
+            return ResponseEntity.badRequest().body("No orders given");
+        }
+        Long userId = UserPrincipal.currentUserId();
+        try {
+            List<OrderTransitionResultDTO> results = orderService.updateOrderStatuses(orderIds, status, userId);
+            return ResponseEntity.status(HttpStatus.OK).body(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping("/change-order-status/{id}")
     public ResponseEntity<?> changeOrderStatus(@RequestParam String status, @PathVariable Long id){
-        String username =  SecurityContextHolder.getContext().getAuthentication().getName();
+        Long userId = UserPrincipal.currentUserId();
         try {
-            String message = orderService.updateOrderStatus(id, status, username);
+            String message = orderService.updateOrderStatus(id, status, userId);
             return ResponseEntity.status(HttpStatus.OK).body(message);
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
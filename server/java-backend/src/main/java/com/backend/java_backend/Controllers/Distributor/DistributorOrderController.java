@@ -2,15 +2,22 @@ package com.backend.java_backend.Controllers.Distributor;
 
 import com.backend.java_backend.Classes.Order;
 import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.AgentLoadDTO;
+import com.backend.java_backend.DTOs.BulkOrderItemDTO;
+import com.backend.java_backend.DTOs.BulkOrderResultDTO;
 import com.backend.java_backend.DTOs.DeliveryAgentDTO;
 import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Services.AgentAssignmentEngine;
+import com.backend.java_backend.Services.BulkOrderService;
 import com.backend.java_backend.Services.CustomUserDetailsService;
 import com.backend.java_backend.Services.OrderService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.DTOs.OrderViewDTO;
+import com.backend.java_backend.Utils.Keyset;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -26,21 +33,43 @@ public class DistributorOrderController {
     private CustomUserDetailsService userDetailsService;
     @Autowired
     private UserRepo userRepo;
+    @Autowired
+    private BulkOrderService bulkOrderService;
+    @Autowired
+    private AgentAssignmentEngine agentAssignmentEngine;
 
 
     @PostMapping("/generate-order/{id}")
-    public ResponseEntity<?> generateOrder(@RequestBody DeliveryAgentDTO deliveryAgentDTO, @PathVariable Long id) {
-        if (deliveryAgentDTO == null || deliveryAgentDTO.getDeliveryAgent() == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Delivery agent is required");
+    public ResponseEntity<?> generateOrder(@RequestBody(required = false) DeliveryAgentDTO deliveryAgentDTO, @PathVariable Long id) {
+        // A missing delivery agent means assign the least-loaded one
+        String agent = deliveryAgentDTO != null ? deliveryAgentDTO.getDeliveryAgent() : null;
+        Order order;
+        try {
+            order = orderService.autoCreateOrderFromRequest(id, agent);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-
-        Order order = orderService.autoCreateOrderFromRequest(id, deliveryAgentDTO.getDeliveryAgent());
         if(order == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not generated");
         }
         return ResponseEntity.status(HttpStatus.OK).body(order);
     }
 
+    // Generate orders for many accepted requests at once; each item reports its own outcome
+    @PostMapping("/generate-orders")
+    public ResponseEntity<?> generateOrders(@RequestBody List<BulkOrderItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No requests given");
+        }
+        try {
+            Long userId = UserPrincipal.currentUserId();
+            List<BulkOrderResultDTO> results = bulkOrderService.createOrders(userId, items);
+            return ResponseEntity.status(HttpStatus.CREATED).body(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/get-agents")
     public ResponseEntity<?>getAgents() {
         List<User> agents = userRepo.findAllByRole(User.Role.DELIVERY);
@@ -50,21 +79,37 @@ public class DistributorOrderController {
         return ResponseEntity.status(HttpStatus.OK).body(agents);
     }
 
+    // Delivery agents with their open order counts, least loaded first
+    @GetMapping("/agent-loads")
+    public ResponseEntity<?> agentLoads() {
+        List<AgentLoadDTO> loads = agentAssignmentEngine.loads();
+        if(loads.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No agents found");
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(loads);
+    }
+
     @GetMapping("/view-orders")
-    public ResponseEntity<?> viewOrders() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        List<Order> orderList = orderService.findByDistributor(username);
+    public ResponseEntity<?> viewOrders(@RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit) {
+        Long userId = UserPrincipal.currentUserId();
+        List<Order> orderList;
+        try {
+            orderList = orderService.findPageByDistributor(userId, Keyset.after(cursor), Keyset.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         if(orderList.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Orders not found");
         }
-        return ResponseEntity.status(HttpStatus.OK).body(orderList);
+        return Keyset.page(orderList, limit, Order::getOrderId, OrderViewDTO::from);
     }
 
     @GetMapping("/export-orders")
     public ResponseEntity<?> exportOrdersCSV() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Order> orders = orderService.findByDistributor(username);
+            Long userId = UserPrincipal.currentUserId();
+            List<Order> orders = orderService.findByDistributor(userId);
 
             return getResponseEntity(orders);
 
@@ -1,14 +1,20 @@
 package com.backend.java_backend.Controllers.Distributor;
 import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.DTOs.ExpiryDTO;
 import com.backend.java_backend.DTOs.ProductDTO;
-import com.backend.java_backend.Services.CloudinaryService;
+import com.backend.java_backend.DTOs.ProductImportJobDTO;
+import com.backend.java_backend.DTOs.ProductViewDTO;
+import com.backend.java_backend.Services.ExpiryEngine;
+import com.backend.java_backend.Services.ImageUploadPipeline;
+import com.backend.java_backend.Services.ProductImportService;
 import com.backend.java_backend.Services.ProductService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.Utils.Keyset;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -25,7 +31,16 @@ public class DistributorProductController {
     private ProductService productService;
 
     @Autowired
-    private CloudinaryService cloudinaryService;
+    private ImageUploadPipeline imageUploadPipeline;
+
+    @Autowired
+    private ExpiryEngine expiryEngine;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @GetMapping("/get-info")
     public ResponseEntity<?> getInfo(){
@@ -42,13 +57,11 @@ public class DistributorProductController {
         System.out.println("Received product JSON: " + productJson);
 
         // Parse JSON into ProductDTO
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.findAndRegisterModules();
-        ProductDTO productDTO = mapper.readValue(productJson, ProductDTO.class);
+        ProductDTO productDTO = objectMapper.readValue(productJson, ProductDTO.class);
 
         // Get current user
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        System.out.println("Authenticated distributor: " + username);
+        Long userId = UserPrincipal.currentUserId();
+        System.out.println("Authenticated distributor: " + userId);
 
         // Validate file type - Accept common image formats
         String contentType = file.getContentType();
@@ -59,20 +72,28 @@ public class DistributorProductController {
                 .body("Only image files are allowed");
         }
 
-        // Upload to Cloudinary
-        String url = cloudinaryService.uploadFile(file);
-        if (url.equals("error")) {
-            System.out.println("Cloudinary upload failed.");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Image upload failed");
+        // Spool the image to disk; it is uploaded in the background once the product is saved
+        ImageUploadPipeline.PendingImage image = imageUploadPipeline.spool(file);
+        if (image == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many image uploads in progress, try again shortly");
         }
 
         // Save product
-        Product product = productService.addProduct(productDTO, username, url);
+        Product product;
+        try {
+            product = productService.addProduct(productDTO, userId, null);
+        } catch (RuntimeException e) {
+            imageUploadPipeline.discard(image);
+            throw e;
+        }
         if (product == null) {
+            imageUploadPipeline.discard(image);
             System.out.println("Product creation failed.");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Product not created");
         }
 
+        imageUploadPipeline.upload(product, image);
         System.out.println("Product created: " + product.getName());
         return ResponseEntity.status(HttpStatus.OK).body(product);
     }
@@ -81,23 +102,65 @@ public class DistributorProductController {
 
 
 
+    // Queue a CSV or JSON-lines file of products for import; each row is a whole product, upserted by SKU.
+    // Poll the returned job for progress and row errors
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importProducts(@RequestPart("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("No file given.");
+        }
+        try {
+            ProductImportJobDTO job = productImportService.submit(UserPrincipal.currentUserId(), file);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not store the upload.");
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> getImport(@PathVariable String jobId) {
+        ProductImportJobDTO job = productImportService.find(jobId, UserPrincipal.currentUserId());
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Import not found");
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(job);
+    }
+
     @GetMapping("/view-products")
-    public ResponseEntity<?> getProducts(){
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        List<Product> productList = productService.findAll(username);
+    public ResponseEntity<?> getProducts(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit){
+        Long userId = UserPrincipal.currentUserId();
+        List<Product> productList;
+        try {
+            productList = productService.findPage(userId, Keyset.after(cursor), Keyset.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         if(productList.isEmpty()){
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("product not found");
         }
-        return ResponseEntity.status(HttpStatus.OK).body(productList);
+        return Keyset.page(productList, limit, Product::getId, ProductViewDTO::from);
     }
 
 
 
+    @GetMapping("/expiring")
+    public ResponseEntity<?> getExpiringProducts(@RequestParam(defaultValue = "7") int days){
+        Long userId = UserPrincipal.currentUserId();
+        List<ExpiryDTO> expiring = expiryEngine.findExpiring(ExpiryDTO.Kind.PRODUCT, userId, days);
+        if(expiring.isEmpty()){
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("no expiring products found");
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(expiring);
+    }
+
     @DeleteMapping("/delete-product/{id}")
     public ResponseEntity<?> deleteProduct(@PathVariable Long id){
         System.out.println("Attempting to delete product with ID: " + id);
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        System.out.println("Authenticated user: " + username);
+        Long userId = UserPrincipal.currentUserId();
+        System.out.println("Authenticated user: " + userId);
 
         Map<String, Object> result = productService.deleteProductById(id);
         boolean success = (boolean) result.get("success");
@@ -119,8 +182,8 @@ public class DistributorProductController {
     @DeleteMapping("/delete-product-by-sku/{sku}")
     public ResponseEntity<?> deleteProductBySku(@PathVariable String sku){
         System.out.println("Attempting to delete product with SKU: " + sku);
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        System.out.println("Authenticated user: " + username);
+        Long userId = UserPrincipal.currentUserId();
+        System.out.println("Authenticated user: " + userId);
 
         Map<String, Object> result = productService.deleteProductBySku(sku);
         boolean success = (boolean) result.get("success");
@@ -141,8 +204,13 @@ public class DistributorProductController {
 
     @PutMapping("/update-product/{id}")
     public ResponseEntity<?> updateProduct(@PathVariable Long id, @RequestBody ProductDTO productDTO) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        Product updatedProduct = productService.updateProduct(id, productDTO, username);
+        Long userId = UserPrincipal.currentUserId();
+        Product updatedProduct;
+        try {
+            updatedProduct = productService.updateProduct(id, productDTO, userId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
 
         if(updatedProduct == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found or you don't have permission to update it");
@@ -160,14 +228,13 @@ public class DistributorProductController {
         System.out.println("Attempting to update product with ID: " + id);
 
         // Parse JSON into ProductDTO
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.findAndRegisterModules();
-        ProductDTO productDTO = mapper.readValue(productJson, ProductDTO.class);
+        ProductDTO productDTO = objectMapper.readValue(productJson, ProductDTO.class);
 
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        System.out.println("Authenticated distributor: " + username);
+        Long userId = UserPrincipal.currentUserId();
+        System.out.println("Authenticated distributor: " + userId);
 
         // Upload image only if provided
+        ImageUploadPipeline.PendingImage image = null;
         if (file != null && !file.isEmpty()) {
             // Validate file type - Accept common image formats
             String contentType = file.getContentType();
@@ -178,26 +245,43 @@ public class DistributorProductController {
                         .body("Only image files are allowed");
             }
 
-            // Upload to Cloudinary
-            String imageUrl = cloudinaryService.uploadFile(file);
-            if (imageUrl.equals("error")) {
-                System.out.println("Cloudinary upload failed.");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Image upload failed");
+            // The current image stays until the new one is uploaded in the background
+            image = imageUploadPipeline.spool(file);
+            if (image == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body("Too many image uploads in progress, try again shortly");
             }
-
-            // Only set the image URL if a new image was uploaded
-            productDTO.setImageUrl(imageUrl);
         }
 
 
 
         // Update the product
-        Product updatedProduct = productService.updateProduct(id, productDTO, username);
+        Product updatedProduct;
+        try {
+            updatedProduct = productService.updateProduct(id, productDTO, userId);
+        } catch (IllegalArgumentException e) {
+            if (image != null) {
+                imageUploadPipeline.discard(image);
+            }
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RuntimeException e) {
+            if (image != null) {
+                imageUploadPipeline.discard(image);
+            }
+            throw e;
+        }
 
         if (updatedProduct == null) {
+            if (image != null) {
+                imageUploadPipeline.discard(image);
+            }
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found or you don't have permission to update it");
         }
 
+        if (image != null) {
+            imageUploadPipeline.upload(updatedProduct, image);
+        }
+
         return ResponseEntity.status(HttpStatus.OK).body(updatedProduct);
     }
     }
@@ -2,11 +2,13 @@ package com.backend.java_backend.Controllers.Distributor;
 
 import com.backend.java_backend.Classes.Request;
 import com.backend.java_backend.Services.RequestService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.DTOs.RequestViewDTO;
+import com.backend.java_backend.Utils.Keyset;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,6 +27,9 @@ public class DistributorRequestController {
         } catch (IllegalArgumentException e) {
             // For invalid status or request not found
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            // Already decided, possibly by a concurrent call
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             // For unexpected errors
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -33,13 +38,19 @@ public class DistributorRequestController {
     }
 
     @GetMapping("/view-requests")
-    public ResponseEntity<?> viewRequests() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        List<Request> requestList = requestService.findAllByDistributor_Id(username);
+    public ResponseEntity<?> viewRequests(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit) {
+        Long userId = UserPrincipal.currentUserId();
+        List<Request> requestList;
+        try {
+            requestList = requestService.findPageByDistributorId(userId, Keyset.after(cursor), Keyset.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         if(requestList.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No requests found");
         }
-        return ResponseEntity.status(HttpStatus.OK).body(requestList);
+        return Keyset.page(requestList, limit, Request::getRequestId, RequestViewDTO::from);
     }
 
     @DeleteMapping("/delete-requests/{id}")
@@ -54,8 +65,8 @@ public class DistributorRequestController {
     @GetMapping("/export-requests")
     public ResponseEntity<?> exportRequestsCSV() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Request> requests = requestService.findAllByDistributor_Id(username);
+            Long userId = UserPrincipal.currentUserId();
+            List<Request> requests = requestService.findAllByDistributor_Id(userId);
 
             return getResponseEntity(requests);
 
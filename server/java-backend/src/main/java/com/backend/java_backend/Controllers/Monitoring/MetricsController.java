@@ -0,0 +1,142 @@
+package com.backend.java_backend.Controllers.Monitoring;
+
+import com.backend.java_backend.Services.AgentAssignmentEngine;
+import com.backend.java_backend.Services.AlertStreamService;
+import com.backend.java_backend.Services.BarcodeIndex;
+import com.backend.java_backend.Services.CatalogCache;
+import com.backend.java_backend.Services.DemandForecaster;
+import com.backend.java_backend.Services.ExpiryEngine;
+import com.backend.java_backend.Services.ImageUploadPipeline;
+import com.backend.java_backend.Services.LogPartitionManager;
+import com.backend.java_backend.Services.LogWriter;
+import com.backend.java_backend.Services.OrderNumberGenerator;
+import com.backend.java_backend.Services.ProductImportService;
+import com.backend.java_backend.Services.ProductSearchIndex;
+import com.backend.java_backend.Services.ReorderScanService;
+import com.backend.java_backend.Services.ReservationLedger;
+import com.backend.java_backend.Utils.JwtClaimsCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private ReorderScanService reorderScanService;
+
+    @Autowired
+    private AlertStreamService alertStreamService;
+
+    @Autowired
+    private ExpiryEngine expiryEngine;
+
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Autowired
+    private LogWriter logWriter;
+
+    @Autowired
+    private LogPartitionManager logPartitionManager;
+
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private AgentAssignmentEngine agentAssignmentEngine;
+    @Autowired
+    private ReservationLedger reservationLedger;
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private BarcodeIndex barcodeIndex;
+    @Autowired
+    private ProductImportService productImportService;
+    @Autowired
+    private ImageUploadPipeline imageUploadPipeline;
+
+    @GetMapping("/jwt-cache")
+    public ResponseEntity<?> jwtCache() {
+        return ResponseEntity.status(HttpStatus.OK).body(jwtClaimsCache.stats());
+    }
+
+    @GetMapping("/reorder-scan")
+    public ResponseEntity<?> reorderScan() {
+        return ResponseEntity.status(HttpStatus.OK).body(reorderScanService.stats());
+    }
+
+    @GetMapping("/alert-streams")
+    public ResponseEntity<?> alertStreams() {
+        return ResponseEntity.status(HttpStatus.OK).body(alertStreamService.stats());
+    }
+
+    @GetMapping("/expiry")
+    public ResponseEntity<?> expiry() {
+        return ResponseEntity.status(HttpStatus.OK).body(expiryEngine.stats());
+    }
+
+    @GetMapping("/forecast")
+    public ResponseEntity<?> forecast() {
+        return ResponseEntity.status(HttpStatus.OK).body(demandForecaster.stats());
+    }
+
+    @GetMapping("/logs-writer")
+    public ResponseEntity<?> logsWriter() {
+        return ResponseEntity.status(HttpStatus.OK).body(logWriter.stats());
+    }
+
+    @GetMapping("/log-partitions")
+    public ResponseEntity<?> logPartitions() {
+        return ResponseEntity.status(HttpStatus.OK).body(logPartitionManager.stats());
+    }
+
+    @GetMapping("/order-numbers")
+    public ResponseEntity<?> orderNumbers() {
+        return ResponseEntity.status(HttpStatus.OK).body(orderNumberGenerator.stats());
+    }
+
+    @GetMapping("/agent-assignment")
+    public ResponseEntity<?> agentAssignment() {
+        return ResponseEntity.status(HttpStatus.OK).body(agentAssignmentEngine.stats());
+    }
+
+    @GetMapping("/reservations")
+    public ResponseEntity<?> reservations() {
+        return ResponseEntity.status(HttpStatus.OK).body(reservationLedger.stats());
+    }
+
+    @GetMapping("/catalog")
+    public ResponseEntity<?> catalog() {
+        return ResponseEntity.status(HttpStatus.OK).body(catalogCache.stats());
+    }
+
+    @GetMapping("/product-search")
+    public ResponseEntity<?> productSearch() {
+        return ResponseEntity.status(HttpStatus.OK).body(productSearchIndex.stats());
+    }
+
+    @GetMapping("/barcodes")
+    public ResponseEntity<?> barcodes() {
+        return ResponseEntity.status(HttpStatus.OK).body(barcodeIndex.stats());
+    }
+
+    @GetMapping("/product-imports")
+    public ResponseEntity<?> productImports() {
+        return ResponseEntity.status(HttpStatus.OK).body(productImportService.stats());
+    }
+
+    @GetMapping("/images")
+    public ResponseEntity<?> images() {
+        return ResponseEntity.status(HttpStatus.OK).body(imageUploadPipeline.stats());
+    }
+}
@@ -0,0 +1,24 @@
+package com.backend.java_backend.Controllers.Retailer;
+
+import com.backend.java_backend.Services.AlertStreamService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/retailer/alerts")
+public class RetailerAlertController {
+
+    @Autowired
+    private AlertStreamService alertStreamService;
+
+    // Live alert stream for the dashboard
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return alertStreamService.subscribe(UserPrincipal.currentUserId());
+    }
+}
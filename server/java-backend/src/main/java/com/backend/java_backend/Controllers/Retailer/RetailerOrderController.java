@@ -5,13 +5,15 @@ import com.backend.java_backend.DTOs.PaymentDTO;
 import com.backend.java_backend.Repos.OrderRepo;
 import com.backend.java_backend.Services.OrderService;
 import com.backend.java_backend.Services.PaymentService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.DTOs.OrderViewDTO;
+import com.backend.java_backend.Utils.Keyset;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -34,14 +36,17 @@ public class RetailerOrderController {
 
     // Get all orders
     @GetMapping("/view-orders")
-    public ResponseEntity<?> viewOrders() {
+    public ResponseEntity<?> viewOrders(@RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Order> orders = orderService.findAllByRetailerId(username);
+            Long userId = UserPrincipal.currentUserId();
+            List<Order> orders = orderService.findPageByRetailerId(userId, Keyset.after(cursor), Keyset.limit(limit));
             if (orders.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No orders found");
             }
-            return ResponseEntity.ok(orders);
+            return Keyset.page(orders, limit, Order::getOrderId, OrderViewDTO::from);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to retrieve orders.");
         }
@@ -49,16 +54,18 @@ public class RetailerOrderController {
 
     // Get orders by status
     @GetMapping("/view-order-status")
-    public ResponseEntity<?> viewOrderStatus(@RequestParam Order.Status status) {
+    public ResponseEntity<?> viewOrderStatus(@RequestParam Order.Status status,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Order> orders = orderService.findAllByStatus(status, username);
+            Long userId = UserPrincipal.currentUserId();
+            List<Order> orders = orderService.findPageByStatus(status, userId, Keyset.after(cursor), Keyset.limit(limit));
             if (orders.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No orders found");
             }
-            return ResponseEntity.ok(orders);
+            return Keyset.page(orders, limit, Order::getOrderId, OrderViewDTO::from);
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body("Invalid order status provided.");
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while fetching orders by status.");
         }
@@ -67,13 +74,12 @@ public class RetailerOrderController {
     @PostMapping("/payment/{id}")
     public ResponseEntity<?> paymentOrder(@PathVariable Long id, @RequestBody PaymentDTO paymentDTO) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            PaymentIntent paymentIntent = paymentService.chargeAmount(id, username, paymentDTO.getAmount(), paymentDTO.getCurrency());
+            Long userId = UserPrincipal.currentUserId();
+            PaymentIntent paymentIntent = paymentService.chargeAmount(id, userId, paymentDTO.getAmount(), paymentDTO.getCurrency());
 
             if (paymentIntent == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Payment could not be processed.");
             }
-            orderRepo.findByOrderId(id).setStatus(Order.Status.PAID);
             return ResponseEntity.ok(Map.of("client_secret", paymentIntent.getClientSecret()));
 
         } catch (StripeException e) {
@@ -82,6 +88,11 @@ public class RetailerOrderController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            // Already paid, possibly by a concurrent call
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Something went wrong while processing the stripe payment.");
         }
@@ -90,8 +101,8 @@ public class RetailerOrderController {
     @GetMapping("/export-orders")
     public ResponseEntity<?> exportOrdersCSV() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Order> orders = orderService.findAllByRetailerId(username);
+            Long userId = UserPrincipal.currentUserId();
+            List<Order> orders = orderService.findAllByRetailerId(userId);
 
             return getResponseEntity(orders);
 
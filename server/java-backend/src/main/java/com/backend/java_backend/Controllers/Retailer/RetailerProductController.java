@@ -1,12 +1,19 @@
 package com.backend.java_backend.Controllers.Retailer;
-import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.DTOs.BarcodeScanDTO;
 import com.backend.java_backend.DTOs.Category;
+import com.backend.java_backend.DTOs.ProductSearchResultDTO;
+import com.backend.java_backend.DTOs.ProductViewDTO;
+import com.backend.java_backend.Services.BarcodeIndex;
+import com.backend.java_backend.Services.ProductSearchIndex;
 import com.backend.java_backend.Services.ProductService;
+import com.backend.java_backend.Utils.Keyset;
+import com.backend.java_backend.Utils.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/retailer/product")
@@ -15,14 +22,84 @@ public class RetailerProductController {
 
     @Autowired
     private ProductService productService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private BarcodeIndex barcodeIndex;
     @PostMapping("/view-products")
-    public ResponseEntity<?> viewProducts(@RequestBody Category category) {
+    public ResponseEntity<?> viewProducts(@RequestBody Category category,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit) {
         System.out.println("Received category: " + category.getCategory());
-        List<Product> products = productService.findByCategory(category);
+        List<ProductViewDTO> products;
+        try {
+            products = productService.findPageByCategory(category, Keyset.after(cursor), Keyset.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
         System.out.println("Found " + products.size() + " products with category: " + category.getCategory());
         if(products.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Product not found");
         }
-        return ResponseEntity.status(HttpStatus.OK).body(products);
+        return Keyset.page(products, limit, ProductViewDTO::id, product -> product);
+    }
+
+    // Type-ahead search over name, SKU and barcode; the cursor carries the offset into the ranked hits
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) String category,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body("Search text is required");
+        }
+        long offset;
+        try {
+            offset = Keyset.after(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        // A cursor decodes to any long; only offsets into the hit list are valid here
+        if (offset < 0 || offset > Integer.MAX_VALUE) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        int pageSize = Keyset.pageSize(limit);
+        List<ProductSearchResultDTO> hits = productSearchIndex.search(q, category, (int) offset, pageSize + 1);
+        if (hits.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No products match");
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            response.header(Keyset.NEXT_CURSOR_HEADER, Keyset.encode(offset + pageSize));
+        }
+        return response.body(hits);
+    }
+
+    // Resolve a scanned barcode to its products and the retailer's stock of each, from memory
+    @GetMapping("/scan/{barcode}")
+    public ResponseEntity<?> scan(@PathVariable String barcode) {
+        List<BarcodeScanDTO> products = barcodeIndex.scan(barcode, UserPrincipal.currentUserId());
+        if (products.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No product found for barcode: " + barcode);
+        }
+        return ResponseEntity.ok(products);
+    }
+
+    // Resolve many scanned barcodes at once; codes that match nothing come back in notFound
+    @PostMapping("/scan")
+    public ResponseEntity<?> scanAll(@RequestBody List<String> barcodes) {
+        if (barcodes == null || barcodes.isEmpty()) {
+            return ResponseEntity.badRequest().body("No barcodes given.");
+        }
+        try {
+            Map<String, Object> result = barcodeIndex.scanAll(barcodes, UserPrincipal.currentUserId());
+            if (((Map<?, ?>) result.get("found")).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
@@ -1,13 +1,17 @@
 package com.backend.java_backend.Controllers.Retailer;
 
 import com.backend.java_backend.Classes.Request;
+import com.backend.java_backend.DTOs.ReplenishItemDTO;
 import com.backend.java_backend.DTOs.RequestProductDTO;
+import com.backend.java_backend.Services.AutoReplenishService;
 import com.backend.java_backend.Services.RequestService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.DTOs.RequestViewDTO;
+import com.backend.java_backend.Utils.Keyset;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,24 +25,26 @@ public class RetailerRequestController {
     @Autowired
     private RequestService requestService;
 
+    @Autowired
+    private AutoReplenishService autoReplenishService;
+
     // View all requests
     @GetMapping("/view-request")
-    public ResponseEntity<?> getRequests(@RequestParam(required = false) Request.Status status) {
+    public ResponseEntity<?> getRequests(@RequestParam(required = false) Request.Status status,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Request> requestList;
-
-            if (status != null) {
-                requestList = requestService.findAllByRetailerIdAndStatus(username, status);
-            } else {
-                requestList = requestService.findAllByRetailerId(username);
-            }
+            Long userId = UserPrincipal.currentUserId();
+            List<Request> requestList = requestService.findPageByRetailerId(userId, status, Keyset.after(cursor),
+                    Keyset.limit(limit));
 
             if (requestList.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No requests found.");
             }
 
-            return ResponseEntity.ok(requestList);
+            return Keyset.page(requestList, limit, Request::getRequestId, RequestViewDTO::from);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while retrieving requests.");
         }
@@ -49,8 +55,8 @@ public class RetailerRequestController {
     @PostMapping("/generate-request")
     public ResponseEntity<?> generateRequest(@RequestBody RequestProductDTO requestProductDTO) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            Request request = requestService.generateRequest(username, requestProductDTO);
+            Long userId = UserPrincipal.currentUserId();
+            RequestViewDTO request = requestService.generateRequest(userId, requestProductDTO);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(request);
 
@@ -64,6 +70,22 @@ public class RetailerRequestController {
         }
     }
 
+    // Generate requests for every stock below its min threshold in one call
+    @PostMapping("/auto-replenish")
+    public ResponseEntity<?> autoReplenish() {
+        try {
+            Long userId = UserPrincipal.currentUserId();
+            List<ReplenishItemDTO> results = autoReplenishService.autoReplenish(userId);
+            if (results.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No stock below threshold.");
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(results);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while generating replenishment requests.");
+        }
+    }
+
     // Delete a request
     @DeleteMapping("/delete-request/{id}")
     public ResponseEntity<?> deleteRequest(@PathVariable("id") Long id) {
@@ -85,8 +107,8 @@ public class RetailerRequestController {
     @GetMapping("/export-requests")
     public ResponseEntity<?> exportRequestsCSV() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Request> requests = requestService.findAllByRetailerId(username);
+            Long userId = UserPrincipal.currentUserId();
+            List<Request> requests = requestService.findAllByRetailerId(userId);
 
             return getResponseEntity(requests);
 
@@ -1,12 +1,25 @@
 package com.backend.java_backend.Controllers.Retailer;
+import com.backend.java_backend.Classes.LogDailySummary;
 import com.backend.java_backend.Classes.Logs;
+import com.backend.java_backend.Classes.ReorderAlert;
 import com.backend.java_backend.Classes.Stock;
 import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.ExpiryDTO;
+import com.backend.java_backend.DTOs.ForecastDTO;
+import com.backend.java_backend.DTOs.LowStockDTO;
 import com.backend.java_backend.DTOs.StockDTO;
+import com.backend.java_backend.Repos.LogDailySummaryRepo;
+import com.backend.java_backend.Repos.ReorderAlertRepo;
 import com.backend.java_backend.Repos.UserRepo;
 import com.backend.java_backend.Services.CustomUserDetailsService;
+import com.backend.java_backend.Services.DemandForecaster;
+import com.backend.java_backend.Services.ExpiryEngine;
 import com.backend.java_backend.Services.LogsService;
+import com.backend.java_backend.Services.LowStockIndex;
 import com.backend.java_backend.Services.StockService;
+import com.backend.java_backend.Utils.UserPrincipal;
+import com.backend.java_backend.DTOs.StockViewDTO;
+import com.backend.java_backend.Utils.Keyset;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -14,7 +27,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/retailer/stocks")
@@ -32,15 +47,34 @@ public class RetailerStockController {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private ReorderAlertRepo reorderAlertRepo;
+
+    @Autowired
+    private ExpiryEngine expiryEngine;
+
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Autowired
+    private LogDailySummaryRepo logDailySummaryRepo;
+
     // Get stocks by product ID
     @PostMapping("/get-stock-productId/{id}")
-    public ResponseEntity<?> getStockProductId(@PathVariable Long id) {
+    public ResponseEntity<?> getStockProductId(@PathVariable Long id,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit) {
         try {
-            List<Stock> stockList = stockService.findByProduct_Id(id);
+            List<Stock> stockList = stockService.findPageByProductId(id, Keyset.after(cursor), Keyset.limit(limit));
             if (stockList.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Stock not found for product ID: " + id);
             }
-            return ResponseEntity.ok(stockList);
+            return Keyset.page(stockList, limit, Stock::getId, StockViewDTO::from);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while retrieving stock.");
         }
@@ -48,25 +82,79 @@ public class RetailerStockController {
 
     // Get stock by retailer username (for home page)
     @GetMapping("/get-stock-username")
-    public ResponseEntity<?> getStock() {
+    public ResponseEntity<?> getStock(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer limit) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Stock> stocksList = stockService.findAllByRetailerUsername(username);
+            Long retailerId = UserPrincipal.currentUserId();
+            List<Stock> stocksList = stockService.findPageByRetailerId(retailerId, Keyset.after(cursor),
+                    Keyset.limit(limit));
             if (stocksList.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No stock found for retailer.");
             }
-            return ResponseEntity.ok(stocksList);
+            return Keyset.page(stocksList, limit, Stock::getId, StockViewDTO::from);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while retrieving retailer stock.");
         }
     }
 
+    // Get stocks below their min threshold, furthest below first
+    @GetMapping("/low-stock")
+    public ResponseEntity<?> getLowStock() {
+        List<LowStockDTO> lowStock = lowStockIndex.findByRetailer(UserPrincipal.currentUserId());
+        if (lowStock.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No low stock found for retailer.");
+        }
+        return ResponseEntity.ok(lowStock);
+    }
+
+    // Get alerts raised by the last background reorder scan
+    @GetMapping("/reorder-alerts")
+    public ResponseEntity<?> getReorderAlerts() {
+        List<ReorderAlert> alerts = reorderAlertRepo.findAllByRetailerIdOrderByStockId(UserPrincipal.currentUserId());
+        if (alerts.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No reorder alerts found for retailer.");
+        }
+        return ResponseEntity.ok(alerts);
+    }
+
+    // Get stock expiring within the given number of days (expired stock included), soonest first
+    @GetMapping("/expiring")
+    public ResponseEntity<?> getExpiringStock(@RequestParam(defaultValue = "7") int days) {
+        List<ExpiryDTO> expiring = expiryEngine.findExpiring(ExpiryDTO.Kind.STOCK, UserPrincipal.currentUserId(), days);
+        if (expiring.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No expiring stock found for retailer.");
+        }
+        return ResponseEntity.ok(expiring);
+    }
+
+    // Get consumption forecasts with days of cover and reorder points, least cover first
+    @GetMapping("/forecast")
+    public ResponseEntity<?> getForecast() {
+        List<ForecastDTO> forecast = demandForecaster.findByRetailer(UserPrincipal.currentUserId());
+        if (forecast.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No forecast available for retailer.");
+        }
+        return ResponseEntity.ok(forecast);
+    }
+
+    // Get the daily movement summary of a product, kept after its raw logs pass retention
+    @GetMapping("/daily-summary/{productId}")
+    public ResponseEntity<?> getDailySummary(@PathVariable Long productId, @RequestParam(defaultValue = "365") int days) {
+        List<LogDailySummary> summary = logDailySummaryRepo.findAllByUserIdAndProductIdAndDayGreaterThanEqualOrderByDay(
+                UserPrincipal.currentUserId(), productId, LocalDate.now().minusDays(days));
+        if (summary.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No summary found for product ID: " + productId);
+        }
+        return ResponseEntity.ok(summary);
+    }
+
     // Update stock by stock ID
     @PutMapping("/update-stock/{id}")
     public ResponseEntity<?> updateStock(@PathVariable Long id, @RequestBody StockDTO stockDTO) {
 
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            User currentUser = userRepo.findByUsername(username);
+            User currentUser = userDetailsService.getReference(UserPrincipal.currentUserId());
 
             Stock stock = stockService.updateStock(id, stockDTO);
 
@@ -80,8 +168,7 @@ public class RetailerStockController {
     @DeleteMapping("/delete-stock/{id}")
     public ResponseEntity<?> deleteStock(@PathVariable Long id) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            User currentUser = userRepo.findByUsername(username);
+            User currentUser = userDetailsService.getReference(UserPrincipal.currentUserId());
 
             // Get stock before deletion for the log
             Stock stockToDelete = stockService.findById(id);
@@ -110,6 +197,24 @@ public class RetailerStockController {
         }
     }
 
+    // Delete many stocks at once; ids that are missing or belong to another retailer come back in notFound
+    @DeleteMapping("/delete-stocks")
+    public ResponseEntity<?> deleteStocks(@RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.badRequest().body("No stock ids given.");
+        }
+        try {
+            Map<String, Object> result = stockService.deleteStocks(UserPrincipal.currentUserId(), ids);
+            if (((List<?>) result.get("deleted")).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error while deleting stocks: " + e.getMessage());
+        }
+    }
+
     // Update stock based on order ID
     @PostMapping("/update-stock")
     public ResponseEntity<?> updateStockFromOrder(@RequestParam Long orderId) {
@@ -128,8 +233,8 @@ public class RetailerStockController {
     @GetMapping("/export-stock")
     public ResponseEntity<?> exportStockCSV() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            List<Stock> stocks = stockService.findAllByRetailerUsername(username);
+            Long retailerId = UserPrincipal.currentUserId();
+            List<Stock> stocks = stockService.findAllByRetailer_Id(retailerId);
 
             StringBuilder csvBuilder = new StringBuilder();
             csvBuilder.append("Stock ID,Product,Quantity,Created At\n");
@@ -0,0 +1,4 @@
+package com.backend.java_backend.DTOs;
+
+public record AgentLoadDTO(Long agentId, String username, long openOrders) {
+}
@@ -0,0 +1,15 @@
+package com.backend.java_backend.DTOs;
+
+import java.time.LocalDateTime;
+
+// Change pushed to dashboards over the alert streams
+public record AlertEvent(long id, Type type, Object data, LocalDateTime createdAt) {
+
+    public enum Type {
+        LOW_STOCK,
+        REQUEST_STATUS,
+        ORDER_STATUS,
+        EXPIRING,
+        EXPIRED
+    }
+}
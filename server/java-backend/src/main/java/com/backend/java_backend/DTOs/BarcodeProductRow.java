@@ -0,0 +1,13 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Product;
+
+// The fields of a product a barcode scan resolves to, as the barcode index holds them
+public record BarcodeProductRow(long productId, String barcode, String name, Long distributorId, double retailPrice) {
+
+    public static BarcodeProductRow from(Product product) {
+        return new BarcodeProductRow(product.getId(), product.getBarcode(), product.getName(),
+                product.getDistributor() != null ? product.getDistributor().getId() : null,
+                product.getRetail_price());
+    }
+}
@@ -0,0 +1,11 @@
+package com.backend.java_backend.DTOs;
+
+// One product a scanned barcode resolves to; stockId is the scanning retailer's stock of it, null if they hold none
+public record BarcodeScanDTO(String barcode, long productId, String name, Long distributorId, double retailPrice,
+                             Long stockId) {
+
+    public static BarcodeScanDTO of(BarcodeProductRow product, Long stockId) {
+        return new BarcodeScanDTO(product.barcode(), product.productId(), product.name(), product.distributorId(),
+                product.retailPrice(), stockId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Request;
+
+public record BulkOrderRequestRow(long requestId, Long retailerId, String retailerAddress, Long distributorId,
+                                  long productId, Integer quantity, float price, boolean orderCheck,
+                                  Request.Status status) {
+}
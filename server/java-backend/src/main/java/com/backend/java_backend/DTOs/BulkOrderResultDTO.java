@@ -0,0 +1,17 @@
+package com.backend.java_backend.DTOs;
+
+public record BulkOrderResultDTO(Long requestId, String deliveryAgent, Long orderId, String orderNumber, Outcome outcome) {
+
+    public enum Outcome {
+        CREATED,
+        REQUEST_NOT_FOUND,
+        NOT_ACCEPTED,
+        ALREADY_ORDERED,
+        AGENT_NOT_FOUND,
+        DUPLICATE
+    }
+
+    public static BulkOrderResultDTO rejected(BulkOrderItemDTO item, Outcome outcome) {
+        return new BulkOrderResultDTO(item.requestId(), item.deliveryAgent(), null, null, outcome);
+    }
+}
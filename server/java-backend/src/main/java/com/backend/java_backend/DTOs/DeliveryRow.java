@@ -0,0 +1,7 @@
+package com.backend.java_backend.DTOs;
+
+import java.time.LocalDateTime;
+
+// A delivered quantity to add to a retailer's stock and take off the distributor's product
+public record DeliveryRow(Long retailerId, long productId, int quantity, int minThreshold, LocalDateTime expiryDate) {
+}
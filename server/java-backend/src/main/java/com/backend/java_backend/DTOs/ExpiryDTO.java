@@ -0,0 +1,34 @@
+package com.backend.java_backend.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// A stock or product with an expiry date, as tracked by the expiry engine
+public record ExpiryDTO(Kind kind, Long id, Long ownerId, Long productId, String productName,
+                        int quantity, LocalDateTime expiryDate) {
+
+    public enum Kind {
+        STOCK,
+        PRODUCT
+    }
+
+    public ExpiryDTO(Long id, Long ownerId, Long productId, String productName, int quantity, LocalDateTime expiryDate) {
+        this(null, id, ownerId, productId, productName, quantity, expiryDate);
+    }
+
+    public ExpiryDTO withKind(Kind kind) {
+        return new ExpiryDTO(kind, id, ownerId, productId, productName, quantity, expiryDate);
+    }
+
+    @JsonProperty("daysLeft")
+    public long daysLeft() {
+        return Duration.between(LocalDateTime.now(), expiryDate).toDays();
+    }
+
+    @JsonProperty("expired")
+    public boolean expired() {
+        return !expiryDate.isAfter(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,8 @@
+package com.backend.java_backend.DTOs;
+
+import java.time.LocalDateTime;
+
+// Smoothed consumption of one product at one retailer; daysOfCover is null while nothing has been consumed yet
+public record ForecastDTO(Long retailerId, long productId, int currentQuantity, double dailyRate,
+                          Double daysOfCover, int reorderPoint, long observations, LocalDateTime lastMovementAt) {
+}
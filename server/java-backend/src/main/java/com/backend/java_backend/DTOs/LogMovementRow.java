@@ -0,0 +1,10 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Logs;
+
+import java.time.LocalDateTime;
+
+// Just the columns of a log row that the demand forecaster reads
+public record LogMovementRow(Long logId, Long userId, long productId, Integer quantity,
+                             Logs.MovementLog movement, LocalDateTime createdAt) {
+}
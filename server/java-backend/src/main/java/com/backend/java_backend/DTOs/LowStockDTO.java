@@ -0,0 +1,19 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Stock;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record LowStockDTO(Long stockId, Long retailerId, long productId, String productName,
+                          int quantity, int minThreshold) {
+
+    public static LowStockDTO from(Stock stock) {
+        return new LowStockDTO(stock.getId(), stock.getRetailer().getId(), stock.getProduct().getId(),
+                stock.getProduct().getName(), stock.getQuantity(), stock.getMin_threshold());
+    }
+
+    // How many units the stock is below its threshold
+    @JsonProperty("deficit")
+    public int deficit() {
+        return minThreshold - quantity;
+    }
+}
@@ -0,0 +1,15 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Order;
+
+public record OrderTransitionResultDTO(Long orderId, Order.Status from, Order.Status to, Outcome outcome) {
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        NOT_ASSIGNED,
+        INVALID_TRANSITION,
+        CONFLICT,
+        DUPLICATE
+    }
+}
@@ -0,0 +1,10 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Order;
+
+import java.time.LocalDateTime;
+
+// What a batch status change needs to know about an order and its product
+public record OrderTransitionRow(Long orderId, Long agentId, Order.Status status, Long retailerId, Long distributorId,
+                                 long productId, Integer quantity, int minThreshold, LocalDateTime expiryDate) {
+}
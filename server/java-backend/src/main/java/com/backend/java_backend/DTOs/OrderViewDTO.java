@@ -0,0 +1,23 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Order;
+
+import java.sql.Timestamp;
+
+// JSON shape of an order in list responses; same field names as the entity
+public record OrderViewDTO(Long orderId, RequestViewDTO request, String orderNumber, UserSummaryDTO retailer,
+                           UserSummaryDTO distributor, ProductSummaryDTO product, Integer quantity,
+                           Order.Status status, Timestamp paymentTimestamp, float price,
+                           UserSummaryDTO deliveryAgent, Timestamp dispatchedAt, Timestamp deliveredAt) {
+
+    public static OrderViewDTO from(Order order) {
+        UserSummaryDTO retailer = UserSummaryDTO.from(order.getRetailer());
+        UserSummaryDTO distributor = UserSummaryDTO.from(order.getDistributor());
+        ProductSummaryDTO product = ProductSummaryDTO.from(order.getProduct());
+        return new OrderViewDTO(order.getOrderId(),
+                RequestViewDTO.from(order.getRequest(), retailer, distributor, product),
+                order.getOrderNumber(), retailer, distributor, product, order.getQuantity(), order.getStatus(),
+                order.getPaymentTimestamp(), order.getPrice(), UserSummaryDTO.from(order.getDeliveryAgent()),
+                order.getDispatchedAt(), order.getDeliveredAt());
+    }
+}
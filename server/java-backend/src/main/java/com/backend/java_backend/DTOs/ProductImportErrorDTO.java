@@ -0,0 +1,5 @@
+package com.backend.java_backend.DTOs;
+
+// A row of an import file that was not written; line is 1-based, header included
+public record ProductImportErrorDTO(long line, String sku, String message) {
+}
@@ -0,0 +1,17 @@
+package com.backend.java_backend.DTOs;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ProductImportJobDTO(String id, String fileName, Status status, long rowsRead, long inserted,
+                                  long updated, long failed, List<ProductImportErrorDTO> errors,
+                                  boolean errorsTruncated, String message, LocalDateTime submittedAt,
+                                  LocalDateTime startedAt, LocalDateTime finishedAt) {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,11 @@
+package com.backend.java_backend.DTOs;
+
+// One search hit; higher scores rank first, ties in id order
+public record ProductSearchResultDTO(long id, String name, String sku, String barcode, String category,
+                                     Long distributorId, String imageUrl, int score) {
+
+    public static ProductSearchResultDTO of(ProductSearchRow row, int score) {
+        return new ProductSearchResultDTO(row.id(), row.name(), row.sku(), row.barcode(), row.category(),
+                row.distributorId(), row.imageUrl(), score);
+    }
+}
@@ -0,0 +1,14 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Product;
+
+// The searchable fields of a product, as the search index holds them
+public record ProductSearchRow(long id, String name, String sku, String barcode, String category,
+                               Long distributorId, String imageUrl) {
+
+    public static ProductSearchRow from(Product product) {
+        return new ProductSearchRow(product.getId(), product.getName(), product.getSku(), product.getBarcode(),
+                product.getCategory(), product.getDistributor() != null ? product.getDistributor().getId() : null,
+                product.getImageUrl());
+    }
+}
@@ -0,0 +1,20 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Product;
+
+import java.time.LocalDateTime;
+
+// A product as embedded in order, request and stock lists, without its distributor
+public record ProductSummaryDTO(long id, String name, String category, String sku, String barcode,
+                                double retail_price, double cost_price, int mst, int quantity,
+                                LocalDateTime expiry_date, String imageUrl, LocalDateTime createdAt) {
+
+    public static ProductSummaryDTO from(Product product) {
+        if (product == null) {
+            return null;
+        }
+        return new ProductSummaryDTO(product.getId(), product.getName(), product.getCategory(), product.getSku(),
+                product.getBarcode(), product.getRetail_price(), product.getCost_price(), product.getMst(),
+                product.getQuantity(), product.getExpiry_date(), product.getImageUrl(), product.getCreatedAt());
+    }
+}
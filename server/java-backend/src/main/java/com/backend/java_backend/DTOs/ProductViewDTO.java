@@ -0,0 +1,19 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Product;
+
+import java.time.LocalDateTime;
+
+// JSON shape of a product in catalog responses; same field names as the entity, distributor without the password
+public record ProductViewDTO(long id, String name, String category, String sku, String barcode,
+                             double retail_price, double cost_price, int mst, int quantity,
+                             LocalDateTime expiry_date, String imageUrl, UserSummaryDTO distributor,
+                             LocalDateTime createdAt) {
+
+    public static ProductViewDTO from(Product product) {
+        return new ProductViewDTO(product.getId(), product.getName(), product.getCategory(), product.getSku(),
+                product.getBarcode(), product.getRetail_price(), product.getCost_price(), product.getMst(),
+                product.getQuantity(), product.getExpiry_date(), product.getImageUrl(),
+                UserSummaryDTO.from(product.getDistributor()), product.getCreatedAt());
+    }
+}
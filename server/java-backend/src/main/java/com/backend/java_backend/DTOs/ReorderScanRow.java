@@ -0,0 +1,4 @@
+package com.backend.java_backend.DTOs;
+
+public record ReorderScanRow(Long stockId, Long retailerId, long productId, int quantity, int minThreshold, int mst) {
+}
@@ -0,0 +1,10 @@
+package com.backend.java_backend.DTOs;
+
+public record ReplenishItemDTO(Long stockId, long productId, Long distributorId, int quantity, float price, Outcome outcome) {
+
+    public enum Outcome {
+        CREATED,
+        PENDING_EXISTS,
+        NO_DISTRIBUTOR
+    }
+}
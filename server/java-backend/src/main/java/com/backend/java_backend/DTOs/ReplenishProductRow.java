@@ -0,0 +1,4 @@
+package com.backend.java_backend.DTOs;
+
+public record ReplenishProductRow(long productId, Long distributorId, double retailPrice) {
+}
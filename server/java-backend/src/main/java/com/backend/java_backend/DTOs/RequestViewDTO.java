@@ -0,0 +1,26 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Request;
+
+import java.time.LocalDateTime;
+
+// JSON shape of a request in list responses; same field names as the entity
+public record RequestViewDTO(long requestId, UserSummaryDTO retailer, UserSummaryDTO distributor,
+                             ProductSummaryDTO product, Integer quantity, float price, boolean orderCheck,
+                             LocalDateTime createdAt, Request.Status status) {
+
+    public static RequestViewDTO from(Request request) {
+        return from(request, UserSummaryDTO.from(request.getRetailer()), UserSummaryDTO.from(request.getDistributor()),
+                ProductSummaryDTO.from(request.getProduct()));
+    }
+
+    // For a request nested in an order, which shares the order's retailer, distributor and product
+    static RequestViewDTO from(Request request, UserSummaryDTO retailer, UserSummaryDTO distributor,
+                               ProductSummaryDTO product) {
+        if (request == null) {
+            return null;
+        }
+        return new RequestViewDTO(request.getRequestId(), retailer, distributor, product, request.getQuantity(),
+                request.getPrice(), request.isOrderCheck(), request.getCreatedAt(), request.getStatus());
+    }
+}
@@ -0,0 +1,5 @@
+package com.backend.java_backend.DTOs;
+
+// Payload for request and order status events
+public record StatusChangeDTO(long id, String status, long productId, Integer quantity) {
+}
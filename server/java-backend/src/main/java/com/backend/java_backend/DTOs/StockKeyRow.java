@@ -0,0 +1,10 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Stock;
+
+public record StockKeyRow(Long stockId, Long retailerId, long productId) {
+
+    public static StockKeyRow from(Stock stock) {
+        return new StockKeyRow(stock.getId(), stock.getRetailer().getId(), stock.getProduct().getId());
+    }
+}
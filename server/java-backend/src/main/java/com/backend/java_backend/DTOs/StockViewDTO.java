@@ -0,0 +1,16 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.Stock;
+
+import java.time.LocalDateTime;
+
+// JSON shape of a stock in list responses; same field names as the entity
+public record StockViewDTO(Long id, UserSummaryDTO retailer, ProductSummaryDTO product, int quantity,
+                           int min_threshold, LocalDateTime expiry_date, LocalDateTime createdAt) {
+
+    public static StockViewDTO from(Stock stock) {
+        return new StockViewDTO(stock.getId(), UserSummaryDTO.from(stock.getRetailer()),
+                ProductSummaryDTO.from(stock.getProduct()), stock.getQuantity(), stock.getMin_threshold(),
+                stock.getExpiry_date(), stock.getCreatedAt());
+    }
+}
@@ -0,0 +1,15 @@
+package com.backend.java_backend.DTOs;
+
+import com.backend.java_backend.Classes.User;
+
+// The public fields of a user as embedded in order, request and stock lists; never the password
+public record UserSummaryDTO(Long id, String username, String email, String address, String phone, User.Role role) {
+
+    public static UserSummaryDTO from(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new UserSummaryDTO(user.getId(), user.getUsername(), user.getEmail(), user.getAddress(),
+                user.getPhone(), user.getRole());
+    }
+}
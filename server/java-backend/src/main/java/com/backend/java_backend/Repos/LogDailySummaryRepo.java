@@ -0,0 +1,13 @@
+package com.backend.java_backend.Repos;
+
+import com.backend.java_backend.Classes.LogDailySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LogDailySummaryRepo extends JpaRepository<LogDailySummary, Long> {
+    List<LogDailySummary> findAllByUserIdAndProductIdAndDayGreaterThanEqualOrderByDay(Long userId, Long productId, LocalDate from);
+}
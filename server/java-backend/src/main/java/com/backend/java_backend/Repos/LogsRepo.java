@@ -1,13 +1,35 @@
 package com.backend.java_backend.Repos;
 
 import com.backend.java_backend.Classes.Logs;
+import com.backend.java_backend.DTOs.LogMovementRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LogsRepo extends JpaRepository<Logs, Long> {
     List<Logs> findByStockId(Long stockId);
     // You can add custom query methods here if needed
+
+    // Keeps the product and quantity of the logs, only drops the link to the stocks
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Logs l SET l.stock = null WHERE l.stock.id IN :stockIds")
+    int nullifyStockReferences(@Param("stockIds") Collection<Long> stockIds);
+
+    @Query("SELECT MAX(l.id) FROM Logs l")
+    Long findMaxId();
+
+    // One partition of the log history (users hashed by id), in log id order
+    @Query("SELECT new com.backend.java_backend.DTOs.LogMovementRow(l.id, u.id, p.id, l.quantity, l.movementLog, l.createdAt) " +
+            "FROM Logs l JOIN l.user u JOIN l.product p " +
+            "WHERE l.id > :afterId AND l.id <= :maxId AND MOD(u.id, :partitions) = :partition ORDER BY l.id")
+    List<LogMovementRow> findMovementBatch(@Param("afterId") Long afterId, @Param("maxId") Long maxId,
+                                           @Param("partitions") int partitions, @Param("partition") int partition,
+                                           Limit limit);
 }
@@ -2,19 +2,77 @@ package com.backend.java_backend.Repos;
 
 import com.backend.java_backend.Classes.Order;
 import com.backend.java_backend.Classes.Request;
+import com.backend.java_backend.DTOs.AgentLoadRow;
+import com.backend.java_backend.DTOs.OrderTransitionRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepo extends JpaRepository<Order,Long> {
 
+    // List queries fetch every association in the same select; the view DTOs read all of them
+
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
     List<Order> findAllByRetailer_Id(Long id);
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
     List<Order> findAllByDistributor_Id(Long distributorId);
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
     List<Order> findAllByStatusAndRetailerId(Order.Status status, Long retailer_id);
     boolean existsByRequest(Request request);
     Order findByOrderId(Long id);
 
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
     List<Order> findAllByDeliveryAgent_Id(Long id);
+
+    @Query("SELECT new com.backend.java_backend.DTOs.AgentLoadRow(o.deliveryAgent.id, COUNT(o)) FROM Order o " +
+            "WHERE o.deliveryAgent IS NOT NULL AND o.status <> com.backend.java_backend.Classes.Order.Status.DELIVERED " +
+            "GROUP BY o.deliveryAgent.id")
+    List<AgentLoadRow> countOpenOrdersByAgent();
+
+    @Query("SELECT new com.backend.java_backend.DTOs.OrderTransitionRow(o.orderId, o.deliveryAgent.id, o.status, " +
+            "o.retailer.id, o.distributor.id, p.id, o.quantity, p.mst, p.expiry_date) " +
+            "FROM Order o JOIN o.product p WHERE o.orderId IN :orderIds")
+    List<OrderTransitionRow> findTransitionRows(Collection<Long> orderIds);
+
+    // Conditional transitions: the row changes only if it is still in one of the allowed statuses (and, for
+    // the agent moves, still the agent's), so a return of 0 means the order was not moved
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.backend.java_backend.Classes.Order.Status.PAID, o.paymentTimestamp = :at " +
+            "WHERE o.orderId = :id AND o.status IN :allowed")
+    int transitionToPaid(Long id, Collection<Order.Status> allowed, Timestamp at);
+
+    // Undoes a payment claim whose charge failed, as long as the order is still the one claimed at that time
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.backend.java_backend.Classes.Order.Status.PENDING, o.paymentTimestamp = NULL " +
+            "WHERE o.orderId = :id AND o.status = com.backend.java_backend.Classes.Order.Status.PAID AND o.paymentTimestamp = :at")
+    int releasePaymentClaim(Long id, Timestamp at);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.backend.java_backend.Classes.Order.Status.DISPATCHED, o.dispatchedAt = :at " +
+            "WHERE o.orderId = :id AND o.deliveryAgent.id = :agentId AND o.status IN :allowed")
+    int transitionToDispatched(Long id, Long agentId, Collection<Order.Status> allowed, Timestamp at);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.backend.java_backend.Classes.Order.Status.DELIVERED, o.deliveredAt = :at " +
+            "WHERE o.orderId = :id AND o.deliveryAgent.id = :agentId AND o.status IN :allowed")
+    int transitionToDelivered(Long id, Long agentId, Collection<Order.Status> allowed, Timestamp at);
+
+    // Keyset pages: rows after the cursor id, in id order
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
+    List<Order> findPageByRetailer_IdAndOrderIdGreaterThanOrderByOrderId(Long retailerId, Long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
+    List<Order> findPageByRetailer_IdAndStatusAndOrderIdGreaterThanOrderByOrderId(Long retailerId, Order.Status status,
+                                                                                 Long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
+    List<Order> findPageByDistributor_IdAndOrderIdGreaterThanOrderByOrderId(Long distributorId, Long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"request", "retailer", "distributor", "product", "deliveryAgent"})
+    List<Order> findPageByDeliveryAgent_IdAndOrderIdGreaterThanOrderByOrderId(Long agentId, Long afterId, Limit limit);
 }
@@ -1,11 +1,18 @@
 package com.backend.java_backend.Repos;
 
 import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.DTOs.BarcodeProductRow;
+import com.backend.java_backend.DTOs.ExpiryDTO;
+import com.backend.java_backend.DTOs.ProductSearchRow;
+import com.backend.java_backend.DTOs.ReplenishProductRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductRepo extends JpaRepository<Product, Long> {
@@ -22,9 +29,44 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
     //get all products
     List<Product> findAllByName(String username);
     Product findById(long id);
+    // The product only if that distributor owns it, with the distributor in the same select
+    @EntityGraph(attributePaths = {"distributor"})
+    Product findByIdAndDistributor_Id(long id, long distributorId);
     Product findBySku(String sku);
 
     List<Product> findAllByCategory(String category);
 
+    @Query("SELECT new com.backend.java_backend.DTOs.ProductSearchRow(p.id, p.name, p.sku, p.barcode, p.category, " +
+            "p.distributor.id, p.imageUrl) FROM Product p")
+    List<ProductSearchRow> findSearchRows();
+
+    @Query("SELECT new com.backend.java_backend.DTOs.BarcodeProductRow(p.id, p.barcode, p.name, p.distributor.id, " +
+            "p.retail_price) FROM Product p WHERE p.barcode IS NOT NULL AND p.barcode <> ''")
+    List<BarcodeProductRow> findBarcodeRows();
+
+    // Loads a whole category for the catalog cache, in id order, with the distributor in the same select
+    @EntityGraph(attributePaths = {"distributor"})
+    List<Product> findByCategoryOrderById(String category, Limit limit);
+
     List<Product> findAllByDistributor_Id(Long id);
+
+    // Keyset pages: rows after the cursor id, in id order
+    @EntityGraph(attributePaths = {"distributor"})
+    List<Product> findPageByCategoryAndIdGreaterThanOrderById(String category, long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"distributor"})
+    List<Product> findPageByDistributor_IdAndIdGreaterThanOrderById(Long distributorId, long afterId, Limit limit);
+
+    // Sets the on-hand quantity only if it still covers what is reserved; 0 means it would not. The row stays
+    // locked until commit, so no reservation can slip in before the entity is saved
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = :quantity WHERE p.id = :id AND p.reserved <= :quantity")
+    int setQuantityCoveringReserved(long id, int quantity);
+
+    @Query("SELECT new com.backend.java_backend.DTOs.ExpiryDTO(p.id, d.id, p.id, p.name, p.quantity, p.expiry_date) " +
+            "FROM Product p LEFT JOIN p.distributor d WHERE p.expiry_date IS NOT NULL")
+    List<ExpiryDTO> findAllWithExpiry();
+
+    @Query("SELECT new com.backend.java_backend.DTOs.ReplenishProductRow(p.id, d.id, p.retail_price) " +
+            "FROM Product p JOIN p.distributor d WHERE p.id IN :ids")
+    List<ReplenishProductRow> findReplenishRows(Collection<Long> ids);
 }
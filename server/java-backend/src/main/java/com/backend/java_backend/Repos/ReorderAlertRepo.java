@@ -0,0 +1,12 @@
+package com.backend.java_backend.Repos;
+
+import com.backend.java_backend.Classes.ReorderAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReorderAlertRepo extends JpaRepository<ReorderAlert, Long> {
+    List<ReorderAlert> findAllByRetailerIdOrderByStockId(Long retailerId);
+}
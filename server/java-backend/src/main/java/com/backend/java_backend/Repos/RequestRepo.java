@@ -1,16 +1,22 @@
 package com.backend.java_backend.Repos;
 
 import com.backend.java_backend.Classes.Request;
+import com.backend.java_backend.DTOs.BulkOrderRequestRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RequestRepo extends JpaRepository<Request,Long> {
+    @EntityGraph(attributePaths = {"retailer", "distributor", "product"})
     List<Request> findAllByRetailer_Id(Long id);
 
     @Transactional
@@ -18,9 +24,46 @@ public interface RequestRepo extends JpaRepository<Request,Long> {
     @Query("DELETE FROM Request r WHERE r.requestId = ?1")
     int deleteRequestByRequestId(Long id);
 
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Request r WHERE r.requestId = :id AND r.status IN :statuses")
+    int deleteRequestByRequestIdAndStatusIn(long id, Collection<Request.Status> statuses);
+
     List<Request> findAllByStatus(Request.Status status);
     Request findByRequestId(long id);
+    @EntityGraph(attributePaths = {"retailer", "distributor", "product"})
     List<Request> findAllByDistributor_Id(Long distributorId);
+    @EntityGraph(attributePaths = {"retailer", "distributor", "product"})
     List<Request> findAllByRetailer_IdAndStatus(Long retailerId, Request.Status status);
     boolean existsByProduct_Id(Long productId);
+
+    // Keyset pages: rows after the cursor id, in id order
+    @EntityGraph(attributePaths = {"retailer", "distributor", "product"})
+    List<Request> findPageByRetailer_IdAndRequestIdGreaterThanOrderByRequestId(Long retailerId, long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"retailer", "distributor", "product"})
+    List<Request> findPageByRetailer_IdAndStatusAndRequestIdGreaterThanOrderByRequestId(Long retailerId, Request.Status status,
+                                                                                       long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"retailer", "distributor", "product"})
+    List<Request> findPageByDistributor_IdAndRequestIdGreaterThanOrderByRequestId(Long distributorId, long afterId, Limit limit);
+
+    @Query("SELECT r.product.id FROM Request r WHERE r.retailer.id = :retailerId " +
+            "AND r.status = com.backend.java_backend.Classes.Request.Status.PENDING AND r.product.id IN :productIds")
+    List<Long> findPendingProductIds(Long retailerId, Collection<Long> productIds);
+
+    @Query("SELECT new com.backend.java_backend.DTOs.BulkOrderRequestRow(r.requestId, rt.id, rt.address, r.distributor.id, " +
+            "r.product.id, r.quantity, r.price, r.orderCheck, r.status) " +
+            "FROM Request r JOIN r.retailer rt WHERE r.distributor.id = :distributorId AND r.requestId IN :requestIds")
+    List<BulkOrderRequestRow> findBulkOrderRows(Long distributorId, Collection<Long> requestIds);
+
+    // Moves the request only if it is still in one of the allowed statuses and has no order yet; 0 means it was not
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Request r SET r.status = :target, r.decidedAt = :at " +
+            "WHERE r.requestId = :id AND r.status IN :allowed AND r.orderCheck = false")
+    int transition(long id, Request.Status target, Collection<Request.Status> allowed, LocalDateTime at);
+
+    // Marks an accepted request as ordered; 0 means it is not accepted or already has an order
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Request r SET r.orderCheck = true WHERE r.requestId = :id AND r.orderCheck = false " +
+            "AND r.status = com.backend.java_backend.Classes.Request.Status.ACCEPTED")
+    int claimForOrder(long id);
 }
@@ -0,0 +1,22 @@
+package com.backend.java_backend.Repos;
+
+import com.backend.java_backend.Classes.ScanCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScanCheckpointRepo extends JpaRepository<ScanCheckpoint, String> {
+    List<ScanCheckpoint> findAllByNameStartingWithOrderByName(String prefix);
+
+    @Modifying
+    @Query("UPDATE ScanCheckpoint c SET c.lastKey = :lastKey, c.done = :done, c.updatedAt = CURRENT_TIMESTAMP WHERE c.name = :name")
+    int advance(String name, Long lastKey, boolean done);
+
+    @Modifying
+    @Query("DELETE FROM ScanCheckpoint c WHERE c.name LIKE CONCAT(:prefix, '%')")
+    int deleteAllByPrefix(String prefix);
+}
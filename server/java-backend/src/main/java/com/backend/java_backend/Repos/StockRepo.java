@@ -1,25 +1,77 @@
 package com.backend.java_backend.Repos;
 
 import com.backend.java_backend.Classes.Stock;
+import com.backend.java_backend.DTOs.ExpiryDTO;
+import com.backend.java_backend.DTOs.LowStockDTO;
+import com.backend.java_backend.DTOs.ReorderScanRow;
+import com.backend.java_backend.DTOs.StockKeyRow;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface StockRepo extends JpaRepository<Stock,Long> {
 
+    @EntityGraph(attributePaths = {"retailer", "product"})
     List<Stock> findAllByRetailer_Id(Long retailerId);
-    List<Stock> findAllByRetailerUsername(String retailerUsername);
 
     @Transactional
     Boolean deleteStockById(Long stockId);
 
+    @EntityGraph(attributePaths = {"retailer", "product"})
     List<Stock> findByProduct_Id(Long productId);
 
+    List<Stock> findAllByIdInAndRetailer_Id(Collection<Long> ids, Long retailerId);
+
+    // Keyset pages: rows after the cursor id, in id order
+    @EntityGraph(attributePaths = {"retailer", "product"})
+    List<Stock> findPageByRetailer_IdAndIdGreaterThanOrderById(Long retailerId, Long afterId, Limit limit);
+    @EntityGraph(attributePaths = {"retailer", "product"})
+    List<Stock> findPageByProduct_IdAndIdGreaterThanOrderById(Long productId, Long afterId, Limit limit);
+
     Optional<Stock> findByRetailerIdAndProductId(Long retailerId, Long productId);
 
+    @EntityGraph(attributePaths = {"retailer", "product"})
+    List<Stock> findAllByRetailer_IdInAndProduct_IdIn(Collection<Long> retailerIds, Collection<Long> productIds);
+
     Stock findStockById(Long stockId);
+
+    // Single-statement increment so concurrent deliveries of the same product never lose an update
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Stock s SET s.quantity = s.quantity + :quantity, s.min_threshold = :minThreshold, " +
+            "s.expiry_date = :expiryDate, s.createdAt = :updatedAt " +
+            "WHERE s.retailer.id = :retailerId AND s.product.id = :productId")
+    int addQuantity(Long retailerId, Long productId, int quantity, int minThreshold,
+                    LocalDateTime expiryDate, LocalDateTime updatedAt);
+
+    @Query("SELECT new com.backend.java_backend.DTOs.LowStockDTO(s.id, s.retailer.id, p.id, p.name, s.quantity, s.min_threshold) " +
+            "FROM Stock s JOIN s.product p WHERE s.quantity < s.min_threshold")
+    List<LowStockDTO> findAllBelowThreshold();
+
+    // Keyset batch for background scans: ids in (afterId, upperId], ascending
+    @Query("SELECT new com.backend.java_backend.DTOs.ReorderScanRow(s.id, s.retailer.id, p.id, s.quantity, s.min_threshold, p.mst) " +
+            "FROM Stock s JOIN s.product p WHERE s.id > :afterId AND s.id <= :upperId ORDER BY s.id")
+    List<ReorderScanRow> findScanBatch(Long afterId, Long upperId, Limit limit);
+
+    @Query("SELECT new com.backend.java_backend.DTOs.ExpiryDTO(s.id, s.retailer.id, p.id, p.name, s.quantity, s.expiry_date) " +
+            "FROM Stock s JOIN s.product p WHERE s.expiry_date IS NOT NULL")
+    List<ExpiryDTO> findAllWithExpiry();
+
+    @Query("SELECT new com.backend.java_backend.DTOs.StockKeyRow(s.id, s.retailer.id, s.product.id) FROM Stock s")
+    List<StockKeyRow> findStockKeys();
+
+    @Query("SELECT MIN(s.id) FROM Stock s")
+    Long findMinId();
+
+    @Query("SELECT MAX(s.id) FROM Stock s")
+    Long findMaxId();
 }
@@ -4,6 +4,7 @@ import com.backend.java_backend.Classes.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +16,5 @@ public interface UserRepo extends JpaRepository<User,Integer> {
     boolean existsByEmail(String email);
     User findById(Long id);
     List<User> findAllByRole(User.Role role);
+    List<User> findAllByUsernameInAndRole(Collection<String> usernames, User.Role role);
 }
@@ -0,0 +1,170 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.AgentLoadDTO;
+import com.backend.java_backend.DTOs.AgentLoadRow;
+import com.backend.java_backend.Repos.OrderRepo;
+import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Keeps the number of open orders (assigned and not yet DELIVERED) of every delivery agent in
+ * memory, in a set ordered by load, so the least-loaded agent is found in O(log n). Loads follow
+ * assignments and deliveries as they commit and are rebuilt from the orders table periodically
+ * to pick up changes made by other nodes.
+ */
+@Service
+public class AgentAssignmentEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentAssignmentEngine.class);
+
+    private record Slot(long openOrders, long agentId) {
+    }
+
+    private static final Comparator<Slot> BY_LOAD =
+            Comparator.comparingLong(Slot::openOrders).thenComparingLong(Slot::agentId);
+
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private OrderRepo orderRepo;
+
+    // All three are guarded by this
+    private final NavigableSet<Slot> byLoad = new TreeSet<>(BY_LOAD);
+    private final Map<Long, Slot> slots = new HashMap<>();
+    private final Map<Long, String> usernames = new HashMap<>();
+
+    private long autoAssigned;
+    private long lastResyncAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        resync();
+    }
+
+    @Scheduled(initialDelayString = "${delivery.assignment.resync-ms:300000}",
+            fixedDelayString = "${delivery.assignment.resync-ms:300000}")
+    public void resync() {
+        List<User> agents = userRepo.findAllByRole(User.Role.DELIVERY);
+        Map<Long, Long> open = new HashMap<>();
+        for (AgentLoadRow row : orderRepo.countOpenOrdersByAgent()) {
+            open.put(row.agentId(), row.openOrders());
+        }
+        synchronized (this) {
+            byLoad.clear();
+            slots.clear();
+            usernames.clear();
+            for (User agent : agents) {
+                put(new Slot(open.getOrDefault(agent.getId(), 0L), agent.getId()));
+                usernames.put(agent.getId(), agent.getUsername());
+            }
+            lastResyncAt = System.currentTimeMillis();
+        }
+        logger.debug("Agent loads rebuilt for {} agent(s)", agents.size());
+    }
+
+    public synchronized void addAgent(User agent) {
+        if (!slots.containsKey(agent.getId())) {
+            put(new Slot(0, agent.getId()));
+        }
+        usernames.put(agent.getId(), agent.getUsername());
+    }
+
+    // Picks the least-loaded agent and counts the order against it; the count is undone if the transaction rolls back
+    public Long assign() {
+        Long agentId;
+        synchronized (this) {
+            if (byLoad.isEmpty()) {
+                return null;
+            }
+            agentId = byLoad.first().agentId();
+            adjust(agentId, 1);
+            autoAssigned++;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        adjustNow(agentId, -1);
+                    }
+                }
+            });
+        }
+        return agentId;
+    }
+
+    // An order was given to this agent by hand
+    public void assigned(Long agentId) {
+        AfterCommit.run(() -> adjustNow(agentId, 1));
+    }
+
+    // An order of this agent was delivered
+    public void delivered(Long agentId) {
+        AfterCommit.run(() -> adjustNow(agentId, -1));
+    }
+
+    public synchronized boolean hasAgents() {
+        return !byLoad.isEmpty();
+    }
+
+    public synchronized String username(Long agentId) {
+        return usernames.get(agentId);
+    }
+
+    private synchronized void adjustNow(Long agentId, long delta) {
+        if (agentId != null) {
+            adjust(agentId, delta);
+        }
+    }
+
+    private void adjust(long agentId, long delta) {
+        Slot current = slots.get(agentId);
+        // Unknown agents are picked up by the next resync
+        if (current == null) {
+            return;
+        }
+        byLoad.remove(current);
+        put(new Slot(Math.max(0, current.openOrders() + delta), agentId));
+    }
+
+    private void put(Slot slot) {
+        slots.put(slot.agentId(), slot);
+        byLoad.add(slot);
+    }
+
+    // Agents ordered from least to most loaded
+    public synchronized List<AgentLoadDTO> loads() {
+        List<AgentLoadDTO> loads = new ArrayList<>(byLoad.size());
+        for (Slot slot : byLoad) {
+            loads.add(new AgentLoadDTO(slot.agentId(), usernames.get(slot.agentId()), slot.openOrders()));
+        }
+        return loads;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("agents", slots.size());
+        stats.put("openOrders", slots.values().stream().mapToLong(Slot::openOrders).sum());
+        stats.put("autoAssigned", autoAssigned);
+        stats.put("lastResyncAt", lastResyncAt);
+        return stats;
+    }
+}
@@ -0,0 +1,196 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.DTOs.AlertEvent;
+import com.backend.java_backend.Utils.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Sent Events fan-out for stock, request and order changes.
+ * An idle connection is just an async response plus an empty buffer; events are queued per
+ * connection (oldest dropped when full) and written by a small shared sender pool, so a slow
+ * client never blocks the service that published the change.
+ */
+@Service
+public class AlertStreamService {
+
+    // Marker queued in place of an event when only a keep-alive comment is needed
+    private static final AlertEvent HEARTBEAT = new AlertEvent(0, null, null, null);
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final AtomicLong eventIds = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long heartbeatMs;
+
+    public AlertStreamService(@Value("${alerts.stream.buffer-size:64}") int bufferSize,
+                              @Value("${alerts.stream.timeout-ms:1800000}") long timeoutMs,
+                              @Value("${alerts.stream.heartbeat-ms:20000}") long heartbeatMs,
+                              @Value("${alerts.stream.sender-threads:4}") int senderThreads) {
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "alert-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(userId, emitter);
+        connections.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> {
+            remove(connection);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(connection));
+
+        // Flushes the response headers so the client sees the stream open straight away
+        connection.enqueue(HEARTBEAT);
+        return emitter;
+    }
+
+    // Delivered once the caller's transaction commits, so listeners never see a rolled back change
+    public void publish(AlertEvent.Type type, Object data, Long... userIds) {
+        publish(type, data, Arrays.asList(userIds));
+    }
+
+    public void publish(AlertEvent.Type type, Object data, Collection<Long> userIds) {
+        Set<Long> recipients = new LinkedHashSet<>(userIds);
+        recipients.remove(null);
+        if (recipients.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            AlertEvent event = new AlertEvent(eventIds.incrementAndGet(), type, data, LocalDateTime.now());
+            for (Long userId : recipients) {
+                Set<Connection> userConnections = connections.get(userId);
+                if (userConnections != null) {
+                    userConnections.forEach(connection -> connection.enqueue(event));
+                }
+            }
+        });
+    }
+
+    // Heartbeats only go to connections that have been quiet; a failed write drops the connection
+    @Scheduled(fixedRateString = "${alerts.stream.heartbeat-ms:20000}")
+    public void heartbeat() {
+        long idleSince = System.currentTimeMillis() - heartbeatMs;
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> {
+            if (connection.lastSentAt < idleSince) {
+                connection.enqueue(HEARTBEAT);
+            }
+        }));
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("users", connections.size());
+        stats.put("connections", connections.values().stream().mapToInt(Set::size).sum());
+        stats.put("eventsSent", sent.sum());
+        stats.put("eventsDropped", dropped.sum());
+        stats.put("bufferSize", bufferSize);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(userConnections -> userConnections.forEach(c -> c.emitter.complete()));
+        sender.shutdownNow();
+    }
+
+    private final class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<AlertEvent> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private volatile long lastSentAt = System.currentTimeMillis();
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(AlertEvent event) {
+            boolean schedule;
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    dropped.increment();
+                }
+                buffer.addLast(event);
+                schedule = !draining;
+                draining = true;
+            }
+            if (schedule) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                AlertEvent event;
+                synchronized (this) {
+                    event = buffer.pollFirst();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.id()))
+                                .name(event.type().name())
+                                .data(event, MediaType.APPLICATION_JSON));
+                        sent.increment();
+                    }
+                    lastSentAt = System.currentTimeMillis();
+                } catch (Exception e) {
+                    remove(this);
+                    synchronized (this) {
+                        buffer.clear();
+                        draining = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.DTOs.LowStockDTO;
+import com.backend.java_backend.DTOs.ReplenishItemDTO;
+import com.backend.java_backend.DTOs.ReplenishProductRow;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Repos.RequestRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Raises PENDING requests for every stock of a retailer that is below its min_threshold,
+ * reading candidates from {@link LowStockIndex} and writing all requests in one JDBC batch.
+ */
+@Service
+public class AutoReplenishService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoReplenishService.class);
+
+    // Namespace for the per-retailer advisory lock taken while requests are generated
+    private static final int REPLENISH_LOCK_NAMESPACE = 0x5245_5150;
+
+    // The NOT EXISTS guard keeps a concurrent manual request from being duplicated
+    private static final String INSERT_REQUEST =
+            "INSERT INTO requests (retailer_id, distributor_id, product_id, quantity, price, \"order-check\", created_at, request_status) " +
+            "SELECT :retailerId, :distributorId, :productId, :quantity, :price, false, :createdAt, 'PENDING' " +
+            "WHERE NOT EXISTS (SELECT 1 FROM requests WHERE retailer_id = :retailerId AND product_id = :productId " +
+            "AND request_status = 'PENDING')";
+
+    @Autowired
+    private LowStockIndex lowStockIndex;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private RequestRepo requestRepo;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${reorder.auto-replenish.enabled:false}")
+    private boolean scheduledEnabled;
+
+    // Requests top a stock back up to this multiple of its min_threshold
+    @Value("${reorder.auto-replenish.target-multiplier:2}")
+    private int targetMultiplier;
+
+    public List<ReplenishItemDTO> autoReplenish(Long retailerId) {
+        List<LowStockDTO> lowStocks = lowStockIndex.findByRetailer(retailerId);
+        if (lowStocks.isEmpty()) {
+            return List.of();
+        }
+        return transactionTemplate.execute(status -> replenish(retailerId, lowStocks));
+    }
+
+    private List<ReplenishItemDTO> replenish(Long retailerId, List<LowStockDTO> lowStocks) {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(:namespace, :key)",
+                new MapSqlParameterSource()
+                        .addValue("namespace", REPLENISH_LOCK_NAMESPACE)
+                        .addValue("key", Long.hashCode(retailerId)));
+
+        Set<Long> productIds = lowStocks.stream().map(LowStockDTO::productId).collect(Collectors.toSet());
+        Map<Long, ReplenishProductRow> products = productRepo.findReplenishRows(productIds).stream()
+                .collect(Collectors.toMap(ReplenishProductRow::productId, Function.identity()));
+        Set<Long> pending = new HashSet<>(requestRepo.findPendingProductIds(retailerId, productIds));
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<ReplenishItemDTO> results = new ArrayList<>();
+        List<ReplenishItemDTO> toInsert = new ArrayList<>();
+        List<SqlParameterSource> batch = new ArrayList<>();
+
+        for (LowStockDTO stock : lowStocks) {
+            ReplenishProductRow product = products.get(stock.productId());
+            int quantity = Math.max(1, stock.minThreshold() * targetMultiplier - stock.quantity());
+
+            if (product == null) {
+                results.add(new ReplenishItemDTO(stock.stockId(), stock.productId(), null, quantity, 0,
+                        ReplenishItemDTO.Outcome.NO_DISTRIBUTOR));
+                continue;
+            }
+            float price = (float) (product.retailPrice() * quantity);
+            // pending.add also stops two low stocks of the same product producing two requests
+            if (!pending.add(stock.productId())) {
+                results.add(new ReplenishItemDTO(stock.stockId(), stock.productId(), product.distributorId(), quantity,
+                        price, ReplenishItemDTO.Outcome.PENDING_EXISTS));
+                continue;
+            }
+
+            toInsert.add(new ReplenishItemDTO(stock.stockId(), stock.productId(), product.distributorId(), quantity,
+                    price, ReplenishItemDTO.Outcome.CREATED));
+            batch.add(new MapSqlParameterSource()
+                    .addValue("retailerId", retailerId)
+                    .addValue("distributorId", product.distributorId())
+                    .addValue("productId", stock.productId())
+                    .addValue("quantity", quantity)
+                    .addValue("price", price)
+                    .addValue("createdAt", now));
+        }
+
+        if (!batch.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(INSERT_REQUEST, batch.toArray(new SqlParameterSource[0]));
+            for (int i = 0; i < toInsert.size(); i++) {
+                ReplenishItemDTO item = toInsert.get(i);
+                // 0 means a manual request slipped in first; rewritten batches report SUCCESS_NO_INFO
+                if (counts[i] == 0) {
+                    item = new ReplenishItemDTO(item.stockId(), item.productId(), item.distributorId(),
+                            item.quantity(), item.price(), ReplenishItemDTO.Outcome.PENDING_EXISTS);
+                }
+                results.add(item);
+            }
+        }
+        return results;
+    }
+
+    @Scheduled(initialDelayString = "${reorder.auto-replenish.initial-delay-ms:120000}",
+            fixedDelayString = "${reorder.auto-replenish.interval-ms:900000}")
+    public void scheduledReplenish() {
+        if (!scheduledEnabled) {
+            return;
+        }
+        for (Long retailerId : lowStockIndex.retailerIds()) {
+            try {
+                List<ReplenishItemDTO> results = autoReplenish(retailerId);
+                long created = results.stream().filter(r -> r.outcome() == ReplenishItemDTO.Outcome.CREATED).count();
+                if (created > 0) {
+                    logger.info("Auto-replenish raised {} request(s) for retailer {}", created, retailerId);
+                }
+            } catch (Exception e) {
+                logger.error("Auto-replenish failed for retailer {}", retailerId, e);
+            }
+        }
+    }
+}
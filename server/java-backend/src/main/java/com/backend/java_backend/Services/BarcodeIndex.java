@@ -0,0 +1,185 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.Classes.Stock;
+import com.backend.java_backend.DTOs.BarcodeProductRow;
+import com.backend.java_backend.DTOs.BarcodeScanDTO;
+import com.backend.java_backend.DTOs.StockKeyRow;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Repos.StockRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves a scanned barcode to the products carrying it (id, distributor, retail price) and the
+ * scanning retailer's stock of each, with hash lookups only. Seeded once at startup and then kept
+ * current by {@link ProductService} and {@link StockService} on every write, after commit.
+ * Several distributors may sell the same item, so one barcode can resolve to several products.
+ */
+@Service
+public class BarcodeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarcodeIndex.class);
+
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private StockRepo stockRepo;
+
+    @Value("${barcode.scan.max-batch:500}")
+    private int maxBatch;
+
+    private final Map<String, Map<Long, BarcodeProductRow>> byBarcode = new ConcurrentHashMap<>();
+    private final Map<Long, String> barcodeOf = new ConcurrentHashMap<>();
+    // Product -> retailer -> that retailer's stock of it
+    private final Map<Long, Map<Long, Long>> stockByProduct = new ConcurrentHashMap<>();
+    private final Map<Long, StockKeyRow> stocks = new ConcurrentHashMap<>();
+
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Writes are serialised with the seed, so a change committed while the tables are read is applied after it
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void seed() {
+        List<BarcodeProductRow> products = productRepo.findBarcodeRows();
+        products.forEach(this::putProduct);
+        List<StockKeyRow> stockKeys = stockRepo.findStockKeys();
+        stockKeys.forEach(this::putStock);
+        logger.info("Barcode index seeded with {} barcodes over {} products and {} stocks",
+                byBarcode.size(), products.size(), stockKeys.size());
+    }
+
+    // The products carrying the barcode, each with the retailer's stock of it; empty if the barcode is unknown
+    public List<BarcodeScanDTO> scan(String barcode, Long retailerId) {
+        scans.increment();
+        Map<Long, BarcodeProductRow> products = byBarcode.get(normalize(barcode));
+        if (products == null || products.isEmpty()) {
+            misses.increment();
+            return List.of();
+        }
+        List<BarcodeScanDTO> result = new ArrayList<>(products.size());
+        for (BarcodeProductRow product : products.values()) {
+            Map<Long, Long> byRetailer = stockByProduct.get(product.productId());
+            result.add(BarcodeScanDTO.of(product, byRetailer != null ? byRetailer.get(retailerId) : null));
+        }
+        result.sort(Comparator.comparingLong(BarcodeScanDTO::productId));
+        return result;
+    }
+
+    // Many scans at once, keyed by the code as sent; codes that resolve to nothing come back in notFound
+    public Map<String, Object> scanAll(Collection<String> barcodes, Long retailerId) {
+        if (barcodes.size() > maxBatch) {
+            throw new IllegalArgumentException("At most " + maxBatch + " barcodes can be scanned at once.");
+        }
+        Map<String, List<BarcodeScanDTO>> found = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String barcode : new LinkedHashSet<>(barcodes)) {
+            List<BarcodeScanDTO> products = barcode == null ? List.of() : scan(barcode, retailerId);
+            if (products.isEmpty()) {
+                notFound.add(barcode);
+            } else {
+                found.put(barcode, products);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("found", found);
+        result.put("notFound", notFound);
+        return result;
+    }
+
+    // Values are captured now but applied only once the surrounding transaction commits
+    public void update(Product product) {
+        BarcodeProductRow row = BarcodeProductRow.from(product);
+        AfterCommit.run(() -> apply(() -> putProduct(row)));
+    }
+
+    public void removeProduct(long productId) {
+        AfterCommit.run(() -> apply(() -> removeProductNow(productId)));
+    }
+
+    public void updateStock(Stock stock) {
+        StockKeyRow key = StockKeyRow.from(stock);
+        AfterCommit.run(() -> apply(() -> putStock(key)));
+    }
+
+    public void removeStock(Long stockId) {
+        AfterCommit.run(() -> apply(() -> removeStockNow(stockId)));
+    }
+
+    private synchronized void apply(Runnable change) {
+        change.run();
+    }
+
+    private void putProduct(BarcodeProductRow row) {
+        removeProductNow(row.productId());
+        String barcode = normalize(row.barcode());
+        if (barcode.isEmpty()) {
+            return;
+        }
+        barcodeOf.put(row.productId(), barcode);
+        byBarcode.computeIfAbsent(barcode, code -> new ConcurrentHashMap<>()).put(row.productId(), row);
+    }
+
+    private void removeProductNow(long productId) {
+        String barcode = barcodeOf.remove(productId);
+        if (barcode != null) {
+            byBarcode.computeIfPresent(barcode, (code, products) -> {
+                products.remove(productId);
+                return products.isEmpty() ? null : products;
+            });
+        }
+    }
+
+    private void putStock(StockKeyRow key) {
+        removeStockNow(key.stockId());
+        stocks.put(key.stockId(), key);
+        stockByProduct.computeIfAbsent(key.productId(), id -> new ConcurrentHashMap<>())
+                .put(key.retailerId(), key.stockId());
+    }
+
+    private void removeStockNow(Long stockId) {
+        StockKeyRow key = stocks.remove(stockId);
+        if (key != null) {
+            stockByProduct.computeIfPresent(key.productId(), (id, byRetailer) -> {
+                byRetailer.remove(key.retailerId(), stockId);
+                return byRetailer.isEmpty() ? null : byRetailer;
+            });
+        }
+    }
+
+    // Scanners differ in surrounding whitespace and in the case of alphanumeric symbologies
+    private static String normalize(String barcode) {
+        return barcode == null ? "" : barcode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public Map<String, Object> stats() {
+        long s = scans.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("barcodes", byBarcode.size());
+        stats.put("products", barcodeOf.size());
+        stats.put("stocks", stocks.size());
+        stats.put("scans", s);
+        stats.put("misses", m);
+        stats.put("hitRatio", s == 0 ? 0.0 : (double) (s - m) / s);
+        return stats;
+    }
+}
@@ -0,0 +1,204 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Order;
+import com.backend.java_backend.Classes.Request;
+import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.AlertEvent;
+import com.backend.java_backend.DTOs.BulkOrderItemDTO;
+import com.backend.java_backend.DTOs.BulkOrderRequestRow;
+import com.backend.java_backend.DTOs.BulkOrderResultDTO;
+import com.backend.java_backend.DTOs.StatusChangeDTO;
+import com.backend.java_backend.Repos.RequestRepo;
+import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns many accepted requests into orders in one call. Requests and agents are each loaded
+ * with one query, the requests are claimed with a single conditional UPDATE, and the orders
+ * are written in one JDBC batch, all in one transaction. Every item gets its own outcome.
+ * Items without a delivery agent go to the least-loaded one, and optionally every such item
+ * for the same retailer address in the call goes to the same agent.
+ */
+@Service
+public class BulkOrderService {
+
+    // Only requests still unclaimed are flipped, so a concurrent generate-order cannot produce a second order
+    private static final String CLAIM_REQUESTS =
+            "UPDATE requests SET \"order-check\" = true " +
+            "WHERE request_id IN (:requestIds) AND \"order-check\" = false AND request_status = 'ACCEPTED' " +
+            "RETURNING request_id";
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (request_id, order_number, retailer_id, distributor_id, product_id, quantity, " +
+            "order_status, price, delivery_agent_id) " +
+            "VALUES (:requestId, :orderNumber, :retailerId, :distributorId, :productId, :quantity, 'PENDING', :price, :agentId)";
+
+    @Autowired
+    private RequestRepo requestRepo;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+    @Autowired
+    private AgentAssignmentEngine agentAssignmentEngine;
+    @Autowired
+    private AlertStreamService alertStreamService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${orders.bulk.max-items:1000}")
+    private int maxItems;
+    @Value("${delivery.assignment.group-by-address:true}")
+    private boolean groupByAddress;
+
+    public List<BulkOrderResultDTO> createOrders(Long distributorId, List<BulkOrderItemDTO> items) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " requests can be ordered at once.");
+        }
+        return transactionTemplate.execute(status -> create(distributorId, items));
+    }
+
+    private List<BulkOrderResultDTO> create(Long distributorId, List<BulkOrderItemDTO> items) {
+        Set<Long> requestIds = items.stream().map(BulkOrderItemDTO::requestId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> usernames = items.stream().map(BulkOrderItemDTO::deliveryAgent).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, BulkOrderRequestRow> requests = requestIds.isEmpty() ? Map.of()
+                : requestRepo.findBulkOrderRows(distributorId, requestIds).stream()
+                        .collect(Collectors.toMap(BulkOrderRequestRow::requestId, Function.identity()));
+        Map<String, Long> agents = usernames.isEmpty() ? Map.of()
+                : userRepo.findAllByUsernameInAndRole(usernames, User.Role.DELIVERY).stream()
+                        .collect(Collectors.toMap(User::getUsername, User::getId, (a, b) -> a));
+
+        BulkOrderResultDTO[] results = new BulkOrderResultDTO[items.size()];
+        Map<Long, Integer> accepted = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkOrderItemDTO item = items.get(i);
+            BulkOrderRequestRow request = item.requestId() != null ? requests.get(item.requestId()) : null;
+            if (item.requestId() != null && !seen.add(item.requestId())) {
+                results[i] = BulkOrderResultDTO.rejected(item, BulkOrderResultDTO.Outcome.DUPLICATE);
+            } else if (request == null) {
+                results[i] = BulkOrderResultDTO.rejected(item, BulkOrderResultDTO.Outcome.REQUEST_NOT_FOUND);
+            } else if (request.status() != Request.Status.ACCEPTED) {
+                results[i] = BulkOrderResultDTO.rejected(item, BulkOrderResultDTO.Outcome.NOT_ACCEPTED);
+            } else if (request.orderCheck()) {
+                results[i] = BulkOrderResultDTO.rejected(item, BulkOrderResultDTO.Outcome.ALREADY_ORDERED);
+            } else if (isAuto(item) ? !agentAssignmentEngine.hasAgents() : !agents.containsKey(item.deliveryAgent())) {
+                results[i] = BulkOrderResultDTO.rejected(item, BulkOrderResultDTO.Outcome.AGENT_NOT_FOUND);
+            } else {
+                accepted.put(item.requestId(), i);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return List.of(results);
+        }
+
+        List<Long> claimed = jdbcTemplate.queryForList(CLAIM_REQUESTS,
+                new MapSqlParameterSource("requestIds", accepted.keySet()), Long.class);
+        Set<Long> claimedIds = new HashSet<>(claimed);
+        List<Integer> toInsert = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : accepted.entrySet()) {
+            if (claimedIds.contains(entry.getKey())) {
+                toInsert.add(entry.getValue());
+            } else {
+                // Claimed by someone else between the read and the update
+                results[entry.getValue()] = BulkOrderResultDTO.rejected(items.get(entry.getValue()),
+                        BulkOrderResultDTO.Outcome.ALREADY_ORDERED);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return List.of(results);
+        }
+        toInsert.sort(null);
+
+        String[] orderNumbers = new String[toInsert.size()];
+        Long[] agentIds = new Long[toInsert.size()];
+        Map<String, Long> agentByAddress = new HashMap<>();
+        SqlParameterSource[] batch = new SqlParameterSource[toInsert.size()];
+        for (int j = 0; j < toInsert.size(); j++) {
+            BulkOrderItemDTO item = items.get(toInsert.get(j));
+            BulkOrderRequestRow request = requests.get(item.requestId());
+            if (isAuto(item)) {
+                agentIds[j] = autoAssign(request, agentByAddress);
+            } else {
+                agentIds[j] = agents.get(item.deliveryAgent());
+                agentAssignmentEngine.assigned(agentIds[j]);
+            }
+            orderNumbers[j] = orderNumberGenerator.next();
+            batch[j] = new MapSqlParameterSource()
+                    .addValue("requestId", request.requestId())
+                    .addValue("orderNumber", orderNumbers[j])
+                    .addValue("retailerId", request.retailerId())
+                    .addValue("distributorId", request.distributorId())
+                    .addValue("productId", request.productId())
+                    .addValue("quantity", request.quantity())
+                    .addValue("price", request.price())
+                    .addValue("agentId", agentIds[j]);
+        }
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_ORDER, batch, keys, new String[]{"order_id"});
+
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int j = 0; j < toInsert.size(); j++) {
+            int index = toInsert.get(j);
+            BulkOrderItemDTO item = items.get(index);
+            // Drivers differ in the case of the returned key column, so take the only value there is
+            Object id = j < ids.size() ? ids.get(j).values().stream().findFirst().orElse(null) : null;
+            Long orderId = id instanceof Number number ? number.longValue() : null;
+            String agent = isAuto(item) ? agentAssignmentEngine.username(agentIds[j]) : item.deliveryAgent();
+            results[index] = new BulkOrderResultDTO(item.requestId(), agent, orderId, orderNumbers[j],
+                    BulkOrderResultDTO.Outcome.CREATED);
+            if (orderId != null) {
+                publishCreated(orderId, requests.get(item.requestId()), agentIds[j]);
+            }
+        }
+        return List.of(results);
+    }
+
+    private boolean isAuto(BulkOrderItemDTO item) {
+        return item.deliveryAgent() == null || item.deliveryAgent().isBlank();
+    }
+
+    private Long autoAssign(BulkOrderRequestRow request, Map<String, Long> agentByAddress) {
+        String address = request.retailerAddress() != null ? request.retailerAddress().trim().toLowerCase() : "";
+        Long agentId = groupByAddress && !address.isEmpty() ? agentByAddress.get(address) : null;
+        if (agentId != null) {
+            agentAssignmentEngine.assigned(agentId);
+            return agentId;
+        }
+        agentId = agentAssignmentEngine.assign();
+        if (agentId == null) {
+            throw new IllegalStateException("No delivery agents available.");
+        }
+        agentByAddress.put(address, agentId);
+        return agentId;
+    }
+
+    private void publishCreated(long orderId, BulkOrderRequestRow request, Long agentId) {
+        StatusChangeDTO change = new StatusChangeDTO(orderId, Order.Status.PENDING.name(), request.productId(),
+                request.quantity());
+        AfterCommit.run(() -> alertStreamService.publish(AlertEvent.Type.ORDER_STATUS, change,
+                request.retailerId(), request.distributorId(), agentId));
+    }
+}
@@ -0,0 +1,191 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.DTOs.ProductViewDTO;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of the retailer catalog, one entry per category holding its products in id
+ * order, so a page is a binary search and a sublist. Entries expire after ttl-ms and the oldest
+ * is evicted beyond max-categories. Product writes invalidate exactly the categories they touch,
+ * after commit; a load that overlaps an invalidation is served but not kept.
+ */
+@Service
+public class CatalogCache {
+
+    // products is null for a category over max-products-per-category
+    private record Entry(List<ProductViewDTO> products, long loadedAt) {
+    }
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Value("${catalog.cache.ttl-ms:300000}")
+    private long ttlMs;
+    @Value("${catalog.cache.max-categories:256}")
+    private int maxCategories;
+    @Value("${catalog.cache.max-products-per-category:5000}")
+    private int maxProductsPerCategory;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Category each cached product was loaded under, so deletes by id know what to drop
+    private final Map<Long, String> categoryOf = new ConcurrentHashMap<>();
+    // Bumped by every invalidation; a load only stores its result if none happened while it ran
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    // Products of the category after afterId, at most limit of them
+    public List<ProductViewDTO> page(String category, long afterId, Limit limit) {
+        if (category == null) {
+            return List.of();
+        }
+        List<ProductViewDTO> products = products(category);
+        if (products == null) {
+            // Too large to keep: page it from the database like any other list
+            return productRepo.findPageByCategoryAndIdGreaterThanOrderById(category, afterId, limit).stream()
+                    .map(ProductViewDTO::from).toList();
+        }
+        int from = firstAfter(products, afterId);
+        int to = limit.isLimited() ? (int) Math.min(products.size(), (long) from + limit.max()) : products.size();
+        return products.subList(from, to);
+    }
+
+    // The cached products of the category, loading them on a miss; null if the category is over the cap
+    private List<ProductViewDTO> products(String category) {
+        Entry entry = entries.get(category);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt() < ttlMs) {
+            hits.increment();
+            return entry.products();
+        }
+        misses.increment();
+        return load(category);
+    }
+
+    private List<ProductViewDTO> load(String category) {
+        long seen = generation.get();
+        long started = System.nanoTime();
+        // One row more than the cap tells a category too large to keep
+        List<ProductViewDTO> products = productRepo.findByCategoryOrderById(category, Limit.of(maxProductsPerCategory + 1))
+                .stream().map(ProductViewDTO::from).toList();
+        long took = System.nanoTime() - started;
+        loadNanos.add(took);
+        maxLoadNanos.accumulateAndGet(took, Math::max);
+
+        if (products.size() > maxProductsPerCategory) {
+            // Remembered as over the cap, so it is not loaded in full again until the entry expires
+            uncacheable.increment();
+            products = null;
+        }
+        store(category, products, seen);
+        return products;
+    }
+
+    private synchronized void store(String category, List<ProductViewDTO> products, long seen) {
+        if (generation.get() != seen) {
+            return;
+        }
+        if (entries.size() >= maxCategories && !entries.containsKey(category)) {
+            evictOldest();
+        }
+        if (products != null) {
+            products.forEach(product -> categoryOf.put(product.id(), category));
+        }
+        entries.put(category, new Entry(products, System.currentTimeMillis()));
+    }
+
+    private void evictOldest() {
+        entries.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().loadedAt()))
+                .ifPresent(oldest -> {
+                    drop(oldest.getKey());
+                    evictions.increment();
+                });
+    }
+
+    private static int firstAfter(List<ProductViewDTO> products, long afterId) {
+        int low = 0;
+        int high = products.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (products.get(mid).id() <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // A product was added to, or changed within, this category
+    public void invalidate(String category) {
+        if (category != null) {
+            AfterCommit.run(() -> invalidateNow(category));
+        }
+    }
+
+    // A product changed or was deleted; drops whichever category it was cached under
+    public void invalidateProduct(long productId) {
+        AfterCommit.run(() -> {
+            String category = categoryOf.get(productId);
+            if (category != null) {
+                invalidateNow(category);
+            }
+        });
+    }
+
+    private synchronized void invalidateNow(String category) {
+        generation.incrementAndGet();
+        if (drop(category)) {
+            invalidations.increment();
+        }
+    }
+
+    private boolean drop(String category) {
+        Entry removed = entries.remove(category);
+        if (removed == null) {
+            return false;
+        }
+        if (removed.products() != null) {
+            removed.products().forEach(product -> categoryOf.remove(product.id(), category));
+        }
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("categories", entries.size());
+        stats.put("products", categoryOf.size());
+        stats.put("maxCategories", maxCategories);
+        stats.put("uncacheable", uncacheable.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("avgLoadMs", m == 0 ? 0.0 : loadNanos.sum() / 1e6 / m);
+        stats.put("maxLoadMs", TimeUnit.NANOSECONDS.toMillis(maxLoadNanos.get()));
+        return stats;
+    }
+}
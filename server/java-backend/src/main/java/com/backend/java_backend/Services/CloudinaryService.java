@@ -3,34 +3,29 @@ package com.backend.java_backend.Services;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 
 @Service
-public class CloudinaryService {
+@ConditionalOnProperty(name = "images.storage", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryService implements ImageStorage {
 
     @Autowired
     private Cloudinary cloudinary;
 
-    public String uploadFile(MultipartFile file) throws IOException {
-        try {
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(), ObjectUtils.emptyMap());
-            System.out.println("Cloudinary upload result: " + uploadResult);
+    // Uploaded from the file, so the image is streamed rather than read into memory first
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        Map uploadResult = cloudinary.uploader().upload(file.toFile(), ObjectUtils.emptyMap());
 
-            // Check if the secure_url is present in the response
-            if (uploadResult != null && uploadResult.containsKey("secure_url")) {
-                return uploadResult.get("secure_url").toString();
-            } else {
-                System.out.println("Cloudinary upload missing secure_url");
-                return "error";
-            }
-        } catch (Exception e) {
-            System.out.println("Cloudinary upload error: " + e.getMessage());
-            e.printStackTrace();
-            return "error";
+        // Check if the secure_url is present in the response
+        if (uploadResult == null || !uploadResult.containsKey("secure_url")) {
+            throw new IOException("Cloudinary upload returned no secure_url");
         }
+        return uploadResult.get("secure_url").toString();
     }
 }
@@ -1,6 +1,8 @@
 package com.backend.java_backend.Services;
 import com.backend.java_backend.Classes.User;
 import com.backend.java_backend.Repos.UserRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,6 +17,9 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepo userRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username);
@@ -24,6 +29,11 @@ public class CustomUserDetailsService implements UserDetailsService {
         return user;
     }
 
+    // Proxy for associating entities with a user whose id we already trust, without a select
+    public User getReference(Long id) {
+        return entityManager.getReference(User.class, id);
+    }
+
     public List<User> getAllDistributors(){
         return userRepository.findAllByRole(User.Role.DISTRIBUTOR);
     }
@@ -0,0 +1,234 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Logs;
+import com.backend.java_backend.DTOs.ForecastDTO;
+import com.backend.java_backend.DTOs.LogMovementRow;
+import com.backend.java_backend.Repos.LogsRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Derives a consumption rate per (retailer, product) from the stock levels recorded in logs.
+ * Each movement updates an exponentially weighted rate and variance in O(1); falls in the
+ * level count as consumption, rises are restocks. The history is replayed once at startup
+ * by a partitioned, parallel backfill.
+ */
+@Service
+public class DemandForecaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandForecaster.class);
+
+    private static final double MILLIS_PER_DAY = 86_400_000d;
+    // Movements closer together than this are pooled into one sample so bursts do not spike the rate
+    private static final double MIN_SAMPLE_DAYS = 1d / 24;
+
+    private static class State {
+        long lastLogId;
+        int quantity;
+        LocalDateTime windowStart;
+        int pendingConsumed;
+        double rate;
+        double variance;
+        long observations;
+        LocalDateTime lastMovementAt;
+    }
+
+    @Autowired
+    private LogsRepo logsRepo;
+
+    // Share of a new sample's weight per elapsed day
+    @Value("${forecast.alpha:0.3}")
+    private double alpha;
+    @Value("${forecast.lead-time-days:3}")
+    private double leadTimeDays;
+    // Safety stock in standard deviations of daily demand (1.65 is roughly a 95% service level)
+    @Value("${forecast.service-z:1.65}")
+    private double serviceZ;
+    @Value("${forecast.backfill.enabled:true}")
+    private boolean backfillEnabled;
+    @Value("${forecast.backfill.batch-size:5000}")
+    private int batchSize;
+    @Value("${forecast.backfill.parallelism:4}")
+    private int parallelism;
+
+    private final Map<Long, Map<Long, State>> byRetailer = new ConcurrentHashMap<>();
+
+    private final AtomicLong movementsApplied = new AtomicLong();
+    private final AtomicLong backfillRows = new AtomicLong();
+    private volatile boolean backfillRunning;
+    private volatile long backfillDurationMs;
+
+    // Called by LogWriter once a movement has been written and has its log id
+    public void record(long logId, LogWriter.PendingLog log) {
+        if (log.userId() == null || log.productId() == null) {
+            return;
+        }
+        apply(new LogMovementRow(logId, log.userId(), log.productId(), log.quantity(), log.movement(), log.createdAt()));
+    }
+
+    private void apply(LogMovementRow row) {
+        if (row.quantity() == null) {
+            return;
+        }
+        Map<Long, State> products = byRetailer.computeIfAbsent(row.userId(), id -> new ConcurrentHashMap<>());
+        // A deleted stock has no demand left to forecast
+        if (row.movement() == Logs.MovementLog.DELETE) {
+            products.remove(row.productId());
+            movementsApplied.incrementAndGet();
+            return;
+        }
+        products.compute(row.productId(), (id, state) -> {
+            if (state == null) {
+                state = new State();
+                state.quantity = row.quantity();
+                state.windowStart = row.createdAt();
+            } else if (row.logId() <= state.lastLogId) {
+                // Already seen; happens when a live write overtakes the backfill for this key
+                return state;
+            } else {
+                observe(state, row);
+            }
+            state.lastLogId = row.logId();
+            state.lastMovementAt = row.createdAt() != null ? row.createdAt() : state.lastMovementAt;
+            return state;
+        });
+        movementsApplied.incrementAndGet();
+    }
+
+    private void observe(State state, LogMovementRow row) {
+        state.pendingConsumed += Math.max(0, state.quantity - row.quantity());
+        state.quantity = row.quantity();
+        if (row.createdAt() == null || state.windowStart == null) {
+            state.windowStart = row.createdAt();
+            state.pendingConsumed = 0;
+            return;
+        }
+
+        double elapsedDays = Duration.between(state.windowStart, row.createdAt()).toMillis() / MILLIS_PER_DAY;
+        if (elapsedDays < MIN_SAMPLE_DAYS) {
+            return;
+        }
+        double sample = state.pendingConsumed / elapsedDays;
+        if (state.observations == 0) {
+            state.rate = sample;
+        } else {
+            // Irregular intervals: a longer gap gives the new sample more weight
+            double weight = 1 - Math.pow(1 - alpha, elapsedDays);
+            double diff = sample - state.rate;
+            state.rate += weight * diff;
+            state.variance = (1 - weight) * (state.variance + weight * diff * diff);
+        }
+        state.observations++;
+        state.windowStart = row.createdAt();
+        state.pendingConsumed = 0;
+    }
+
+    public List<ForecastDTO> findByRetailer(Long retailerId) {
+        Map<Long, State> products = byRetailer.get(retailerId);
+        if (products == null) {
+            return List.of();
+        }
+        List<ForecastDTO> result = new ArrayList<>();
+        // Read through computeIfPresent so a snapshot never sees a half-applied movement
+        for (Long productId : products.keySet()) {
+            products.computeIfPresent(productId, (id, state) -> {
+                result.add(toDTO(retailerId, id, state));
+                return state;
+            });
+        }
+        result.sort(Comparator.comparing(ForecastDTO::daysOfCover, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private ForecastDTO toDTO(Long retailerId, Long productId, State state) {
+        Double daysOfCover = state.rate > 0 ? state.quantity / state.rate : null;
+        double safetyStock = serviceZ * Math.sqrt(state.variance) * Math.sqrt(leadTimeDays);
+        int reorderPoint = (int) Math.ceil(state.rate * leadTimeDays + safetyStock);
+        return new ForecastDTO(retailerId, productId, state.quantity, state.rate, daysOfCover, reorderPoint,
+                state.observations, state.lastMovementAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillEnabled) {
+            return;
+        }
+        Long maxId = logsRepo.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        Thread runner = new Thread(() -> runBackfill(maxId), "forecast-backfill");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    // Every user's logs land in exactly one partition, so each key is still replayed in log order
+    private void runBackfill(Long maxId) {
+        backfillRunning = true;
+        long started = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int partition = 0; partition < parallelism; partition++) {
+                int p = partition;
+                futures.add(workers.submit(() -> replayPartition(maxId, p)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            backfillDurationMs = System.currentTimeMillis() - started;
+            logger.info("Demand forecast backfilled from {} log rows in {} ms", backfillRows.get(), backfillDurationMs);
+        } catch (Exception e) {
+            logger.error("Demand forecast backfill failed", e);
+        } finally {
+            workers.shutdown();
+            backfillRunning = false;
+        }
+    }
+
+    private void replayPartition(Long maxId, int partition) {
+        long afterId = 0;
+        while (true) {
+            List<LogMovementRow> batch = logsRepo.findMovementBatch(afterId, maxId, parallelism, partition,
+                    Limit.of(batchSize));
+            batch.forEach(this::apply);
+            backfillRows.addAndGet(batch.size());
+            if (batch.size() < batchSize) {
+                return;
+            }
+            afterId = batch.get(batch.size() - 1).logId();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("retailers", byRetailer.size());
+        stats.put("series", byRetailer.values().stream().mapToInt(Map::size).sum());
+        stats.put("movementsApplied", movementsApplied.get());
+        stats.put("backfillRunning", backfillRunning);
+        stats.put("backfillRows", backfillRows.get());
+        stats.put("backfillDurationMs", backfillDurationMs);
+        stats.put("alpha", alpha);
+        stats.put("leadTimeDays", leadTimeDays);
+        return stats;
+    }
+}
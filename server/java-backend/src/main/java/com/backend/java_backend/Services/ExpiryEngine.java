@@ -0,0 +1,226 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.Classes.Stock;
+import com.backend.java_backend.DTOs.AlertEvent;
+import com.backend.java_backend.DTOs.ExpiryDTO;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Repos.StockRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks every stock and product that has an expiry date in time-ordered skip lists.
+ * A single timeline holds the next moment each item needs attention (entering the warning
+ * window, then expiring), so the scheduled tick only looks at the head of the timeline
+ * instead of scanning tables. Per-owner sets ordered by expiry date answer
+ * "what expires in the next N days" as a range query.
+ */
+@Service
+public class ExpiryEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiryEngine.class);
+
+    private static final Comparator<ExpiryDTO> BY_EXPIRY =
+            Comparator.comparing(ExpiryDTO::expiryDate).thenComparing(ExpiryDTO::id);
+
+    private enum Stage {
+        EXPIRING,
+        EXPIRED
+    }
+
+    private record Key(ExpiryDTO.Kind kind, Long id) {
+    }
+
+    private record Timer(LocalDateTime fireAt, Key key, Stage stage) {
+    }
+
+    private static final Comparator<Timer> BY_FIRE_TIME = Comparator.comparing(Timer::fireAt)
+            .thenComparing(t -> t.key().kind())
+            .thenComparing(t -> t.key().id());
+
+    private record Tracked(ExpiryDTO entry, Timer timer) {
+    }
+
+    @Autowired
+    private StockRepo stockRepo;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private AlertStreamService alertStreamService;
+
+    @Value("${expiry.warning-days:7}")
+    private int warningDays;
+
+    private final NavigableSet<Timer> timeline = new ConcurrentSkipListSet<>(BY_FIRE_TIME);
+    private final Map<Key, Tracked> tracked = new ConcurrentHashMap<>();
+    private final Map<Key, NavigableSet<ExpiryDTO>> byOwner = new ConcurrentHashMap<>();
+
+    private final AtomicLong expiringAlerts = new AtomicLong();
+    private final AtomicLong expiredAlerts = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        List<ExpiryDTO> stocks = stockRepo.findAllWithExpiry();
+        List<ExpiryDTO> products = productRepo.findAllWithExpiry();
+        stocks.forEach(s -> apply(s.withKind(ExpiryDTO.Kind.STOCK)));
+        products.forEach(p -> apply(p.withKind(ExpiryDTO.Kind.PRODUCT)));
+        logger.info("Expiry engine seeded with {} stock(s) and {} product(s)", stocks.size(), products.size());
+    }
+
+    // Stocks and products that expire within the given number of days (already expired included), soonest first
+    public List<ExpiryDTO> findExpiring(ExpiryDTO.Kind kind, Long ownerId, int days) {
+        NavigableSet<ExpiryDTO> entries = byOwner.get(new Key(kind, ownerId));
+        if (entries == null) {
+            return List.of();
+        }
+        ExpiryDTO bound = new ExpiryDTO(kind, Long.MAX_VALUE, ownerId, null, null, 0,
+                LocalDateTime.now().plusDays(days));
+        return new ArrayList<>(entries.headSet(bound, true));
+    }
+
+    public void update(Stock stock) {
+        ExpiryDTO entry = new ExpiryDTO(ExpiryDTO.Kind.STOCK, stock.getId(), stock.getRetailer().getId(),
+                stock.getProduct().getId(), stock.getProduct().getName(), stock.getQuantity(), stock.getExpiry_date());
+        AfterCommit.run(() -> apply(entry));
+    }
+
+    public void update(Product product) {
+        Long distributorId = product.getDistributor() != null ? product.getDistributor().getId() : null;
+        ExpiryDTO entry = new ExpiryDTO(ExpiryDTO.Kind.PRODUCT, product.getId(), distributorId,
+                product.getId(), product.getName(), product.getQuantity(), product.getExpiry_date());
+        AfterCommit.run(() -> apply(entry));
+    }
+
+    public void removeStock(Long stockId) {
+        AfterCommit.run(() -> removeNow(new Key(ExpiryDTO.Kind.STOCK, stockId)));
+    }
+
+    public void removeProduct(Long productId) {
+        AfterCommit.run(() -> removeNow(new Key(ExpiryDTO.Kind.PRODUCT, productId)));
+    }
+
+    private void apply(ExpiryDTO entry) {
+        // An item with nothing left on hand has nothing left to spoil
+        if (entry.expiryDate() == null || entry.quantity() <= 0) {
+            removeNow(new Key(entry.kind(), entry.id()));
+        } else {
+            put(entry);
+        }
+    }
+
+    private void put(ExpiryDTO entry) {
+        Key key = new Key(entry.kind(), entry.id());
+        tracked.compute(key, (k, previous) -> {
+            if (previous != null) {
+                unlink(previous);
+            }
+            // Keep the stage already reached when the expiry date is unchanged, so a restock does not re-alert
+            Timer timer = previous != null && previous.entry().expiryDate().equals(entry.expiryDate())
+                    ? previous.timer()
+                    : new Timer(entry.expiryDate().minusDays(warningDays), key, Stage.EXPIRING);
+            if (timer != null) {
+                timeline.add(timer);
+            }
+            if (entry.ownerId() != null) {
+                byOwner.compute(new Key(entry.kind(), entry.ownerId()), (ok, entries) -> {
+                    NavigableSet<ExpiryDTO> target = entries != null ? entries : new ConcurrentSkipListSet<>(BY_EXPIRY);
+                    target.add(entry);
+                    return target;
+                });
+            }
+            return new Tracked(entry, timer);
+        });
+    }
+
+    private void removeNow(Key key) {
+        tracked.computeIfPresent(key, (k, previous) -> {
+            unlink(previous);
+            return null;
+        });
+    }
+
+    private void unlink(Tracked previous) {
+        if (previous.timer() != null) {
+            timeline.remove(previous.timer());
+        }
+        ExpiryDTO entry = previous.entry();
+        if (entry.ownerId() != null) {
+            byOwner.computeIfPresent(new Key(entry.kind(), entry.ownerId()), (ok, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+    }
+
+    @Scheduled(initialDelayString = "${expiry.tick-initial-delay-ms:30000}",
+            fixedDelayString = "${expiry.tick-interval-ms:60000}")
+    public void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Timer head : timeline) {
+            if (head.fireAt().isAfter(now)) {
+                return;
+            }
+            if (timeline.remove(head)) {
+                fire(head, now);
+            }
+        }
+    }
+
+    private void fire(Timer timer, LocalDateTime now) {
+        tracked.computeIfPresent(timer.key(), (k, current) -> {
+            // The item was updated after this timer was polled; its new timer is already queued
+            if (!timer.equals(current.timer())) {
+                return current;
+            }
+            ExpiryDTO entry = current.entry();
+            Timer next = null;
+            if (timer.stage() == Stage.EXPIRING && entry.expiryDate().isAfter(now)) {
+                publish(AlertEvent.Type.EXPIRING, entry);
+                expiringAlerts.incrementAndGet();
+                next = new Timer(entry.expiryDate(), k, Stage.EXPIRED);
+                timeline.add(next);
+            } else {
+                publish(AlertEvent.Type.EXPIRED, entry);
+                expiredAlerts.incrementAndGet();
+            }
+            return new Tracked(entry, next);
+        });
+    }
+
+    private void publish(AlertEvent.Type type, ExpiryDTO entry) {
+        if (entry.ownerId() != null) {
+            alertStreamService.publish(type, entry, entry.ownerId());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("tracked", tracked.size());
+        stats.put("pendingTimers", timeline.size());
+        Timer next = timeline.isEmpty() ? null : timeline.first();
+        stats.put("nextFireAt", next != null ? next.fireAt() : null);
+        stats.put("expiringAlerts", expiringAlerts.get());
+        stats.put("expiredAlerts", expiredAlerts.get());
+        stats.put("warningDays", warningDays);
+        return stats;
+    }
+}
@@ -0,0 +1,15 @@
+package com.backend.java_backend.Services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where product images are kept. {@link ImageUploadPipeline} hands each image over from a temporary
+ * file on one of its workers, never on a request thread; the URL returned becomes the product's
+ * imageUrl. Chosen with images.storage: cloudinary (the default) or local.
+ */
+public interface ImageStorage {
+
+    // Stores the image and returns its URL; an exception fails this attempt, which the pipeline retries
+    String store(Path file, String contentType) throws IOException;
+}
@@ -0,0 +1,217 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Takes product images off the request thread. The multipart body is streamed to a temporary file,
+ * the product is answered straight away with its image PENDING, and a small pool of workers hands
+ * the file to the configured {@link ImageStorage}, retrying with a doubling delay, then patches the
+ * product's imageUrl and image status. At most max-pending images wait at once; beyond that new
+ * uploads are turned away rather than queued without bound.
+ */
+@Service
+public class ImageUploadPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageUploadPipeline.class);
+
+    private static final String MARK_PENDING =
+            "UPDATE products SET image_status = 'PENDING' WHERE id = :productId";
+
+    // A failed upload keeps whatever image the product had before
+    private static final String PATCH_IMAGE =
+            "UPDATE products SET image_url = COALESCE(:imageUrl, image_url), image_status = :status WHERE id = :productId";
+
+    // An image spooled to disk and holding one of the max-pending slots until it is uploaded or discarded
+    public record PendingImage(Path file, String contentType) {
+    }
+
+    @Autowired
+    private ImageStorage imageStorage;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${images.upload.max-attempts:3}")
+    private int maxAttempts;
+    @Value("${images.upload.retry-delay-ms:2000}")
+    private long retryDelayMs;
+
+    private final ScheduledExecutorService workers;
+    private final Semaphore slots;
+    private final int maxPending;
+    // Newest upload per product; an older one that finishes later does not overwrite it
+    private final Map<Long, Long> latest = new ConcurrentHashMap<>();
+    private final AtomicLong tickets = new AtomicLong();
+
+    private final LongAdder uploaded = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder uploadNanos = new LongAdder();
+    private final AtomicLong maxUploadNanos = new AtomicLong();
+
+    public ImageUploadPipeline(@Value("${images.upload.threads:4}") int threads,
+                               @Value("${images.upload.max-pending:200}") int maxPending) {
+        this.maxPending = maxPending;
+        this.slots = new Semaphore(maxPending);
+        this.workers = Executors.newScheduledThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "image-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Streams the upload to a temporary file; null if max-pending images are already waiting
+    public PendingImage spool(MultipartFile file) throws IOException {
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            return null;
+        }
+        try {
+            Path spooled = Files.createTempFile("product-image-", null);
+            try {
+                file.transferTo(spooled);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(spooled);
+                throw e;
+            }
+            return new PendingImage(spooled, file.getContentType());
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    // The product was not saved after all
+    public void discard(PendingImage image) {
+        finish(image);
+    }
+
+    // Marks the product's image pending, on the returned object too, and uploads it once the caller commits
+    public void upload(Product product, PendingImage image) {
+        long productId = product.getId();
+        long ticket = tickets.incrementAndGet();
+        latest.put(productId, ticket);
+        jdbcTemplate.update(MARK_PENDING, new MapSqlParameterSource("productId", productId));
+        product.setImageStatus(Product.ImageStatus.PENDING);
+        AfterCommit.run(() -> workers.execute(() -> attempt(productId, ticket, image, 1)));
+    }
+
+    private void attempt(long productId, long ticket, PendingImage image, int attempt) {
+        if (!latest.getOrDefault(productId, ticket).equals(ticket)) {
+            superseded.increment();
+            finish(image);
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            String url = imageStorage.store(image.file(), image.contentType());
+            long took = System.nanoTime() - started;
+            uploadNanos.add(took);
+            maxUploadNanos.accumulateAndGet(took, Math::max);
+            uploaded.increment();
+            patch(productId, ticket, url, Product.ImageStatus.READY);
+            finish(image);
+        } catch (Exception e) {
+            if (attempt < maxAttempts) {
+                retried.increment();
+                long delay = retryDelayMs << (attempt - 1);
+                logger.warn("Image upload for product {} failed (attempt {} of {}), retrying in {} ms: {}",
+                        productId, attempt, maxAttempts, delay, e.getMessage());
+                workers.schedule(() -> attempt(productId, ticket, image, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } else {
+                failed.increment();
+                logger.error("Image upload for product {} failed after {} attempts", productId, attempt, e);
+                patch(productId, ticket, null, Product.ImageStatus.FAILED);
+                finish(image);
+            }
+        }
+    }
+
+    // Only the newest upload of a product writes; the catalog and search entries then pick up the new URL
+    private void patch(long productId, long ticket, String url, Product.ImageStatus status) {
+        if (!latest.remove(productId, ticket)) {
+            superseded.increment();
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                int updated = jdbcTemplate.update(PATCH_IMAGE, new MapSqlParameterSource()
+                        .addValue("imageUrl", url)
+                        .addValue("status", status.name())
+                        .addValue("productId", productId));
+                Product product = updated > 0 ? productRepo.findById(productId) : null;
+                if (product != null) {
+                    productSearchIndex.update(product);
+                    catalogCache.invalidateProduct(productId);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not record the image of product {}", productId, e);
+        }
+    }
+
+    private void finish(PendingImage image) {
+        try {
+            Files.deleteIfExists(image.file());
+        } catch (IOException e) {
+            logger.warn("Could not delete spooled image {}", image.file(), e);
+        } finally {
+            slots.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public Map<String, Object> stats() {
+        long u = uploaded.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("storage", imageStorage.getClass().getSimpleName());
+        stats.put("pending", maxPending - slots.availablePermits());
+        stats.put("maxPending", maxPending);
+        stats.put("uploaded", u);
+        stats.put("retried", retried.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("superseded", superseded.sum());
+        stats.put("avgUploadMs", u == 0 ? 0.0 : uploadNanos.sum() / 1e6 / u);
+        stats.put("maxUploadMs", TimeUnit.NANOSECONDS.toMillis(maxUploadNanos.get()));
+        return stats;
+    }
+}
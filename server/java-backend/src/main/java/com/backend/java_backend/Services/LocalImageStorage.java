@@ -0,0 +1,64 @@
+package com.backend.java_backend.Services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Keeps product images in a local directory and serves them under url-prefix, for tests and for
+ * environments without access to Cloudinary.
+ */
+@Service
+@ConditionalOnProperty(name = "images.storage", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+
+    @Value("${images.storage.local.dir:${java.io.tmpdir}/product-images}")
+    private Path directory;
+    @Value("${images.storage.local.url-prefix:/images}")
+    private String urlPrefix;
+
+    // Created up front so the resource handler is registered on an existing directory
+    @PostConstruct
+    public void createDirectory() throws IOException {
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public String store(Path file, String contentType) throws IOException {
+        String name = UUID.randomUUID() + extension(contentType);
+        // Written under a temporary name and moved, so a half-copied image is never served
+        Path partial = directory.resolve(name + ".part");
+        Files.copy(file, partial);
+        Files.move(partial, directory.resolve(name));
+        return urlPrefix + "/" + name;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public String urlPrefix() {
+        return urlPrefix;
+    }
+
+    private static String extension(String contentType) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            return "";
+        }
+        String subtype = contentType.substring("image/".length()).toLowerCase(Locale.ROOT);
+        int end = subtype.indexOf(';');
+        subtype = (end >= 0 ? subtype.substring(0, end) : subtype).trim();
+        return switch (subtype) {
+            case "jpeg", "pjpeg" -> ".jpg";
+            case "svg+xml" -> ".svg";
+            default -> subtype.matches("[a-z0-9.+-]+") ? "." + subtype : "";
+        };
+    }
+}
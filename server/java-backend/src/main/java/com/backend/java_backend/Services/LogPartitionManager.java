@@ -0,0 +1,235 @@
+package com.backend.java_backend.Services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of the logs table set up by partition_logs_table.sql.
+ * Once a day it creates the partitions for the coming months, and every partition that has
+ * aged past the retention window is rolled up into log_daily_summary and then dropped
+ * or detached, in one transaction per partition. Does nothing until the table is partitioned.
+ */
+@Service
+public class LogPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogPartitionManager.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("logs_y(\\d{4})m(\\d{2})");
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("'logs_y'yyyy'm'MM");
+
+    // Cluster-wide lock so only one backend node maintains partitions at a time
+    private static final long PARTITION_LOCK_KEY = 0x4C4F4750L;
+
+    // consumed sums the falls between consecutive movements of the same (user, product); the first movement
+    // of the month is measured against the closing quantity of the latest earlier summary day, so a drop
+    // across the month boundary is counted too (partitions are retired oldest first)
+    private static final String ROLLUP =
+            "WITH opening AS (" +
+            "  SELECT DISTINCT ON (user_id, product_id) user_id, product_id, closing_quantity " +
+            "  FROM log_daily_summary WHERE day < :monthStart ORDER BY user_id, product_id, day DESC) " +
+            "INSERT INTO log_daily_summary (day, user_id, product_id, movements, adds, updates, deletes, consumed, " +
+            "min_quantity, max_quantity, closing_quantity) " +
+            "SELECT created_at::date, user_id, product_id, COUNT(*), " +
+            "COUNT(*) FILTER (WHERE log_info = 'ADD'), COUNT(*) FILTER (WHERE log_info = 'UPDATE'), " +
+            "COUNT(*) FILTER (WHERE log_info = 'DELETE'), COALESCE(SUM(GREATEST(previous - quantity, 0)), 0), " +
+            "MIN(quantity), MAX(quantity), (ARRAY_AGG(quantity ORDER BY created_at DESC, id DESC))[1] " +
+            "FROM (SELECT l.*, COALESCE(LAG(l.quantity) OVER (PARTITION BY l.user_id, l.product_id " +
+            "      ORDER BY l.created_at, l.id), o.closing_quantity) AS previous " +
+            "      FROM %s l LEFT JOIN opening o ON o.user_id = l.user_id AND o.product_id = l.product_id) moves " +
+            "WHERE user_id IS NOT NULL AND product_id IS NOT NULL " +
+            "GROUP BY created_at::date, user_id, product_id " +
+            "ON CONFLICT (day, user_id, product_id) DO UPDATE SET " +
+            "movements = log_daily_summary.movements + EXCLUDED.movements, " +
+            "adds = log_daily_summary.adds + EXCLUDED.adds, " +
+            "updates = log_daily_summary.updates + EXCLUDED.updates, " +
+            "deletes = log_daily_summary.deletes + EXCLUDED.deletes, " +
+            "consumed = log_daily_summary.consumed + EXCLUDED.consumed, " +
+            "min_quantity = LEAST(log_daily_summary.min_quantity, EXCLUDED.min_quantity), " +
+            "max_quantity = GREATEST(log_daily_summary.max_quantity, EXCLUDED.max_quantity), " +
+            "closing_quantity = EXCLUDED.closing_quantity";
+
+    private static final String DEFAULT_PARTITION =
+            "SELECT pt.partdefid::regclass::text FROM pg_partitioned_table pt " +
+            "WHERE pt.partrelid = 'logs'::regclass AND pt.partdefid <> 0";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${logs.partition.months-ahead:2}")
+    private int monthsAhead;
+    // Months of raw logs kept, counting the current one
+    @Value("${logs.retention.months:12}")
+    private int retentionMonths;
+    // DROP deletes expired partitions after the rollup; DETACH keeps them as standalone archive tables
+    @Value("${logs.retention.mode:DROP}")
+    private String retentionMode;
+
+    private volatile long partitionsCreated;
+    private volatile long partitionsRetired;
+    private volatile long summaryRowsWritten;
+    private volatile long failures;
+    private volatile long lastRunAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${logs.partition.cron:0 15 2 * * *}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                logger.info("logs table is not partitioned, skipping partition maintenance");
+                return;
+            }
+            createUpcomingPartitions();
+            retireExpiredPartitions();
+            lastRunAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            logger.error("Log partition maintenance failed", e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "WHERE c.relname = 'logs')", new MapSqlParameterSource(), Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = 'logs' ORDER BY c.relname",
+                new MapSqlParameterSource(), String.class);
+    }
+
+    private void createUpcomingPartitions() {
+        List<String> existing = partitionNames();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = month.format(PARTITION_FORMAT);
+            if (existing.contains(name)) {
+                continue;
+            }
+            // One month failing must not stop the others, nor the retirement after them
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (tryLock()) {
+                        createPartition(name, month);
+                    }
+                });
+            } catch (RuntimeException e) {
+                failures++;
+                logger.error("Could not create log partition {}", name, e);
+            }
+        }
+    }
+
+    // Rows already logged for the month sit in the DEFAULT partition, and Postgres refuses to create a
+    // partition while DEFAULT holds rows in its range, so they are set aside and re-inserted once it exists
+    private void createPartition(String name, YearMonth month) {
+        // Names and bounds come from YearMonth, never from input, so formatting them in is safe
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        List<String> defaults = jdbcTemplate.queryForList(DEFAULT_PARTITION, new MapSqlParameterSource(), String.class);
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        int moved = 0;
+        if (!defaults.isEmpty()) {
+            jdbc.execute("CREATE TEMPORARY TABLE logs_moving (LIKE logs) ON COMMIT DROP");
+            moved = jdbc.update(String.format(
+                    "WITH moved AS (DELETE FROM %s WHERE created_at >= '%s' AND created_at < '%s' RETURNING *) " +
+                    "INSERT INTO logs_moving SELECT * FROM moved", defaults.get(0), from, to));
+        }
+        jdbc.execute(String.format("CREATE TABLE IF NOT EXISTS %s PARTITION OF logs FOR VALUES FROM ('%s') TO ('%s')",
+                name, from, to));
+        if (moved > 0) {
+            jdbc.update("INSERT INTO logs SELECT * FROM logs_moving");
+        }
+        if (!defaults.isEmpty()) {
+            jdbc.execute("DROP TABLE logs_moving");
+        }
+        partitionsCreated++;
+        logger.info("Created log partition {}{}", name, moved > 0 ? " with " + moved + " row(s) moved out of the default partition" : "");
+    }
+
+    private void retireExpiredPartitions() {
+        LocalDate cutoff = YearMonth.now().minusMonths(retentionMonths - 1L).atDay(1);
+        for (String name : partitionNames()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                try {
+                    retire(name, month);
+                } catch (RuntimeException e) {
+                    failures++;
+                    logger.error("Could not retire log partition {}", name, e);
+                }
+            }
+        }
+    }
+
+    // Rollup and removal share a transaction, so a partition is never dropped without its summary
+    private void retire(String partition, YearMonth month) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!tryLock()) {
+                return;
+            }
+            int rows = jdbcTemplate.update(String.format(ROLLUP, partition),
+                    new MapSqlParameterSource("monthStart", month.atDay(1)));
+            if ("DETACH".equalsIgnoreCase(retentionMode)) {
+                jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE logs DETACH PARTITION " + partition);
+                jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE " + partition + " RENAME TO archived_" + partition);
+            } else {
+                jdbcTemplate.getJdbcTemplate().execute("DROP TABLE " + partition);
+            }
+            summaryRowsWritten += rows;
+            partitionsRetired++;
+            logger.info("Rolled up {} into {} summary row(s) and retired it ({})", partition, rows, retentionMode);
+        });
+    }
+
+    private boolean tryLock() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(:key)",
+                new MapSqlParameterSource("key", PARTITION_LOCK_KEY), Boolean.class);
+        return Boolean.TRUE.equals(locked);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("partitionsCreated", partitionsCreated);
+        stats.put("partitionsRetired", partitionsRetired);
+        stats.put("summaryRowsWritten", summaryRowsWritten);
+        stats.put("failures", failures);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("monthsAhead", monthsAhead);
+        stats.put("retentionMonths", retentionMonths);
+        stats.put("retentionMode", retentionMode);
+        return stats;
+    }
+}
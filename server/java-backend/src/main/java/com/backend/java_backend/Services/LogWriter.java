@@ -0,0 +1,234 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Logs;
+import com.backend.java_backend.Utils.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind pipeline for the logs audit trail. Movements are queued in memory and a single
+ * writer thread inserts them in JDBC batches once a batch is full or the oldest queued entry
+ * has waited flush-interval-ms. With reWriteBatchedInserts on the datasource URL each batch
+ * reaches Postgres as multi-row INSERTs. When the queue is full the caller writes its own
+ * entry instead of dropping it. A batch that fails is retried one row at a time; a row that still
+ * fails is logged, counted in failed and dropped.
+ */
+@Service
+public class LogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogWriter.class);
+
+    // stock_id goes through a subquery: a stock deleted before the flush leaves the log without a stock
+    private static final String INSERT_LOG =
+            "INSERT INTO logs (product_id, stock_id, user_id, quantity, log_info, created_at) " +
+            "VALUES (:productId, (SELECT id FROM stocks WHERE id = :stockId), :userId, :quantity, :movement, :createdAt)";
+
+    public record PendingLog(Long productId, Long stockId, Long userId, Integer quantity,
+                             Logs.MovementLog movement, LocalDateTime createdAt, long enqueuedAtNanos) {
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Value("${logs.writer.capacity:10000}")
+    private int capacity;
+    @Value("${logs.writer.batch-size:500}")
+    private int batchSize;
+    @Value("${logs.writer.flush-interval-ms:200}")
+    private long flushIntervalMs;
+    @Value("${logs.writer.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMs;
+
+    private BlockingQueue<PendingLog> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder overflowWrites = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::run, "logs-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void enqueue(Logs log) {
+        PendingLog pending = toPending(log);
+        enqueued.increment();
+        try {
+            if (running && queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Queue full or shutting down: fall back to writing this entry on the caller's thread
+        overflowWrites.increment();
+        flush(List.of(pending));
+    }
+
+    // Writes the logs as one batch inside the caller's transaction; failures propagate so it rolls back
+    public void writeNow(List<Logs> logs) {
+        if (!logs.isEmpty()) {
+            insert(logs.stream().map(this::toPending).toList());
+        }
+    }
+
+    private PendingLog toPending(Logs log) {
+        return new PendingLog(
+                log.getProduct() != null ? log.getProduct().getId() : null,
+                log.getStock() != null ? log.getStock().getId() : null,
+                log.getUser() != null ? log.getUser().getId() : null,
+                log.getQuantity(),
+                log.getMovementLog(),
+                log.getCreatedAt() != null ? log.getCreatedAt() : LocalDateTime.now(),
+                System.nanoTime());
+    }
+
+    private void run() {
+        List<PendingLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAtNanos() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Whatever is still queued is drained by the loop before the thread exits
+                running = false;
+            } catch (Exception e) {
+                logger.error("Logs writer loop failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // A failed batch is retried row by row, so one bad row does not take the rest of the batch with it
+    private void flush(List<PendingLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                failed.increment();
+                logger.error("Failed to write log row {}", batch.get(0), e);
+            } else {
+                logger.warn("Failed to write {} log row(s) as a batch, retrying them one by one", batch.size(), e);
+                batch.forEach(log -> flush(List.of(log)));
+            }
+            return;
+        }
+        long lag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.get(0).enqueuedAtNanos());
+        lastLagMs.set(lag);
+        maxLagMs.accumulateAndGet(lag, Math::max);
+    }
+
+    private void insert(List<PendingLog> batch) {
+        SqlParameterSource[] params = batch.stream().map(this::toParams).toArray(SqlParameterSource[]::new);
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_LOG, params, keys, new String[]{"id"});
+        written.add(batch.size());
+        batches.increment();
+
+        List<Map<String, Object>> ids = keys.getKeyList();
+        for (int i = 0; i < batch.size() && i < ids.size(); i++) {
+            PendingLog pending = batch.get(i);
+            // Drivers differ in the case of the returned key column, so take the only value there is
+            Object id = ids.get(i).values().stream().findFirst().orElse(null);
+            if (id instanceof Number number) {
+                AfterCommit.run(() -> demandForecaster.record(number.longValue(), pending));
+            }
+        }
+    }
+
+    private SqlParameterSource toParams(PendingLog log) {
+        return new MapSqlParameterSource()
+                .addValue("productId", log.productId())
+                .addValue("stockId", log.stockId())
+                .addValue("userId", log.userId())
+                .addValue("quantity", log.quantity())
+                .addValue("movement", log.movement() != null ? log.movement().name() : null)
+                .addValue("createdAt", Timestamp.valueOf(log.createdAt()));
+    }
+
+    // Stops taking new entries and waits for the writer to drain what is already queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            List<PendingLog> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            flush(rest);
+        }
+        logger.info("Logs writer stopped after writing {} row(s)", written.sum());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("enqueued", enqueued.sum());
+        stats.put("written", written.sum());
+        stats.put("batches", batches.sum());
+        stats.put("overflowWrites", overflowWrites.sum());
+        stats.put("failed", failed.sum());
+        PendingLog oldest = queue.peek();
+        stats.put("oldestQueuedMs", oldest == null ? 0
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAtNanos()));
+        stats.put("lastFlushLagMs", lastLagMs.get());
+        stats.put("maxFlushLagMs", maxLagMs.get());
+        return stats;
+    }
+}
@@ -4,10 +4,12 @@ import com.backend.java_backend.Classes.Logs;
 import com.backend.java_backend.Classes.Stock;
 import com.backend.java_backend.Classes.User;
 import com.backend.java_backend.Repos.LogsRepo;
+import com.backend.java_backend.Utils.AfterCommit;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -16,6 +18,9 @@ public class LogsService {
     @Autowired
     private final LogsRepo logsRepo;
 
+    @Autowired
+    private LogWriter logWriter;
+
     public LogsService(LogsRepo logsRepo) {
         this.logsRepo = logsRepo;
     }
@@ -27,11 +32,12 @@ public class LogsService {
         log.setUser(user);
         log.setMovementLog(action);
         log.setQuantity(stock.getQuantity());
-        logsRepo.save(log);
+        saveLog(log);
     }
 
+    // Queued for the batched writer; nothing is queued if the surrounding transaction rolls back
     public void saveLog(Logs log) {
-        logsRepo.save(log);
+        AfterCommit.run(() -> logWriter.enqueue(log));
     }
 
     /**
@@ -40,6 +46,16 @@ public class LogsService {
      */
     @Transactional
     public void nullifyStockReferences(Long stockId) {
+        logsRepo.nullifyStockReferences(List.of(stockId));
+    }
+
+    @Transactional
+    public int nullifyStockReferences(Collection<Long> stockIds) {
+        return logsRepo.nullifyStockReferences(stockIds);
+    }
 
+    // Written in the caller's transaction, unlike saveLog, so they commit or roll back with it
+    public void saveLogsNow(List<Logs> logs) {
+        logWriter.writeNow(logs);
     }
 }
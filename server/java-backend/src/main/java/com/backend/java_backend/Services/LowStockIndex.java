@@ -0,0 +1,103 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Stock;
+import com.backend.java_backend.DTOs.LowStockDTO;
+import com.backend.java_backend.Repos.StockRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps only the stocks that are below their min_threshold, grouped by retailer, so a
+ * retailer's reorder list costs O(k) in the number of low stocks instead of a table scan.
+ * Seeded once at startup and then maintained by {@link StockService} on every stock write.
+ */
+@Service
+public class LowStockIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockIndex.class);
+
+    @Autowired
+    private StockRepo stockRepo;
+
+    private final Map<Long, Map<Long, LowStockDTO>> byRetailer = new ConcurrentHashMap<>();
+    private final Map<Long, Long> retailerByStock = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        List<LowStockDTO> lowStocks = stockRepo.findAllBelowThreshold();
+        lowStocks.forEach(this::put);
+        logger.info("Low-stock index seeded with {} entries", lowStocks.size());
+    }
+
+    public List<LowStockDTO> findByRetailer(Long retailerId) {
+        Map<Long, LowStockDTO> entries = byRetailer.get(retailerId);
+        if (entries == null) {
+            return List.of();
+        }
+        List<LowStockDTO> result = new ArrayList<>(entries.values());
+        result.sort(Comparator.comparingInt(LowStockDTO::deficit).reversed());
+        return result;
+    }
+
+    public Set<Long> retailerIds() {
+        return Set.copyOf(byRetailer.keySet());
+    }
+
+    public boolean isLow(Long stockId) {
+        return retailerByStock.containsKey(stockId);
+    }
+
+    // Values are captured now but applied only once the surrounding transaction commits
+    public void update(Stock stock) {
+        LowStockDTO entry = LowStockDTO.from(stock);
+        AfterCommit.run(() -> {
+            if (entry.quantity() < entry.minThreshold()) {
+                put(entry);
+            } else {
+                removeNow(entry.stockId());
+            }
+        });
+    }
+
+    public void remove(Long stockId) {
+        AfterCommit.run(() -> removeNow(stockId));
+    }
+
+    private void put(LowStockDTO entry) {
+        Long previousRetailer = retailerByStock.put(entry.stockId(), entry.retailerId());
+        if (previousRetailer != null && !previousRetailer.equals(entry.retailerId())) {
+            removeFromRetailer(previousRetailer, entry.stockId());
+        }
+        byRetailer.compute(entry.retailerId(), (id, entries) -> {
+            Map<Long, LowStockDTO> target = entries != null ? entries : new ConcurrentHashMap<>();
+            target.put(entry.stockId(), entry);
+            return target;
+        });
+    }
+
+    private void removeNow(Long stockId) {
+        Long retailerId = retailerByStock.remove(stockId);
+        if (retailerId != null) {
+            removeFromRetailer(retailerId, stockId);
+        }
+    }
+
+    private void removeFromRetailer(Long retailerId, Long stockId) {
+        byRetailer.computeIfPresent(retailerId, (id, entries) -> {
+            entries.remove(stockId);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+}
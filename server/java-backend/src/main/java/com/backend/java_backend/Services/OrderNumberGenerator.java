@@ -0,0 +1,99 @@
+package com.backend.java_backend.Services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues order numbers such as ORD-261018-00012345. The numeric part comes from blocks
+ * reserved on the order_number_seq sequence: each nextval hands this node a range of
+ * block-size numbers no other node can receive, and numbers within the range are taken
+ * with a single atomic increment. The date prefix keeps numbers ordered by day and readable.
+ */
+@Service
+public class OrderNumberGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNumberGenerator.class);
+
+    private static final String SEQUENCE = "order_number_seq";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyMMdd");
+
+    // Numbers [next, end) belong to this node
+    private record Block(AtomicLong next, long end) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${orders.number.block-size:1000}")
+    private int blockSize;
+
+    // Increment the sequence was created with; used instead of blockSize if the two differ
+    private long increment;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(new AtomicLong(), 0));
+
+    private final LongAdder issued = new LongAdder();
+    private final AtomicLong blocksReserved = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH 1 INCREMENT BY " + blockSize);
+        String actual = jdbcTemplate.queryForObject(
+                "SELECT CAST(increment AS VARCHAR(20)) FROM information_schema.sequences WHERE LOWER(sequence_name) = ?",
+                String.class, SEQUENCE);
+        increment = Long.parseLong(actual);
+        if (increment != blockSize) {
+            logger.warn("{} increments by {}, not the configured block size {}; using {}", SEQUENCE, increment,
+                    blockSize, increment);
+        }
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long value = block.next().getAndIncrement();
+            if (value < block.end()) {
+                issued.increment();
+                return format(value);
+            }
+            reserve(block);
+        }
+    }
+
+    // Only the thread that finds the block exhausted fetches the next one; the rest retry on the new block
+    private synchronized void reserve(Block exhausted) {
+        if (current.get() != exhausted) {
+            return;
+        }
+        Long start = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+        current.set(new Block(new AtomicLong(start), start + increment));
+        blocksReserved.incrementAndGet();
+    }
+
+    private String format(long value) {
+        return String.format("ORD-%s-%08d", LocalDate.now().format(DAY), value);
+    }
+
+    public Map<String, Object> stats() {
+        Block block = current.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("issued", issued.sum());
+        stats.put("blocksReserved", blocksReserved.get());
+        stats.put("blockSize", increment);
+        stats.put("remainingInBlock", Math.max(0, block.end() - block.next().get()));
+        return stats;
+    }
+}
@@ -4,24 +4,50 @@ import com.backend.java_backend.Classes.Order;
 import com.backend.java_backend.Classes.Product;
 import com.backend.java_backend.Classes.Request;
 import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.AlertEvent;
+import com.backend.java_backend.DTOs.DeliveryRow;
 import com.backend.java_backend.DTOs.OrderDTO;
+import com.backend.java_backend.DTOs.OrderTransitionResultDTO;
+import com.backend.java_backend.DTOs.OrderTransitionRow;
+import com.backend.java_backend.DTOs.StatusChangeDTO;
 import com.backend.java_backend.Repos.OrderRepo;
 import com.backend.java_backend.Repos.ProductRepo;
 import com.backend.java_backend.Repos.RequestRepo;
 import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import com.backend.java_backend.Utils.StatusTransitions;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    // Statuses a delivery agent may move an order to; the sources come from StatusTransitions
+    private static final Set<Order.Status> AGENT_TARGETS = EnumSet.of(Order.Status.DISPATCHED, Order.Status.DELIVERED);
+
+    // The status and its timestamp change only where the order is still the agent's and still in an allowed status
+    private static final String TRANSITION_ORDERS =
+            "UPDATE orders SET order_status = :target, %s = :now " +
+            "WHERE order_id IN (:orderIds) AND delivery_agent_id = :agentId AND order_status IN (:allowed) " +
+            "RETURNING order_id";
+
     @Autowired
     private OrderRepo orderRepo;
     @Autowired
@@ -32,36 +58,68 @@ public class OrderService {
     private ProductRepo productRepo;
     @Autowired
     private StockService stockService;
+    @Autowired
+    private AlertStreamService alertStreamService;
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+    @Autowired
+    private AgentAssignmentEngine agentAssignmentEngine;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<Order> findAllByRetailerId(Long retailerId){
+        return  orderRepo.findAllByRetailer_Id(retailerId);
+    }
+
+    public List<Order> findAllByStatus(Order.Status status, Long retailerId){
+        return orderRepo.findAllByStatusAndRetailerId(status, retailerId);
+    }
+
+    public List<Order> findAllByDeliveryAgent(Long agentId){
+        return orderRepo.findAllByDeliveryAgent_Id(agentId);
+    }
+
+    public List<Order> findPageByRetailerId(Long retailerId, long afterId, Limit limit) {
+        return orderRepo.findPageByRetailer_IdAndOrderIdGreaterThanOrderByOrderId(retailerId, afterId, limit);
+    }
 
-    public List<Order> findAllByRetailerId(String username){
-        User user = userRepo.findByUsername(username);
-        return  orderRepo.findAllByRetailer_Id(user.getId());
+    public List<Order> findPageByStatus(Order.Status status, Long retailerId, long afterId, Limit limit) {
+        return orderRepo.findPageByRetailer_IdAndStatusAndOrderIdGreaterThanOrderByOrderId(retailerId, status, afterId, limit);
     }
 
-    public List<Order> findAllByStatus(Order.Status status,String username){
-        User user = userRepo.findByUsername(username);
-        return orderRepo.findAllByStatusAndRetailerId(status,user.getId());
+    public List<Order> findPageByDeliveryAgent(Long agentId, long afterId, Limit limit) {
+        return orderRepo.findPageByDeliveryAgent_IdAndOrderIdGreaterThanOrderByOrderId(agentId, afterId, limit);
     }
 
-    public List<Order> findAllByDeliveryAgent(String username){
-        User user = userRepo.findByUsername(username);
-        return orderRepo.findAllByDeliveryAgent_Id(user.getId());
+    public List<Order> findPageByDistributor(Long distributorId, long afterId, Limit limit) {
+        return orderRepo.findPageByDistributor_IdAndOrderIdGreaterThanOrderByOrderId(distributorId, afterId, limit);
     }
 
     @Transactional
     public Order autoCreateOrderFromRequest(Long id, String deliveryAgent) {
-        Request request = requestRepo.findByRequestId(id);
-        if (request == null) {
-            throw new IllegalArgumentException("Request cannot be found.");
-        }
-
-        if (deliveryAgent == null || deliveryAgent.isBlank()) {
-            throw new IllegalArgumentException("Delivery agent username is required.");
+        // Claimed before anything else: only an accepted request without an order can become one
+        if (requestRepo.claimForOrder(id) == 0) {
+            if (requestRepo.findByRequestId(id) == null) {
+                throw new IllegalArgumentException("Request cannot be found.");
+            }
+            throw new IllegalArgumentException("Request is not accepted or already has an order.");
         }
+        Request request = requestRepo.findByRequestId(id);
 
-        User agent = userRepo.findByUsername(deliveryAgent);
-        if (agent == null) {
-            throw new IllegalArgumentException("Delivery agent not found: " + deliveryAgent);
+        // Without a named agent the order goes to the least-loaded one
+        boolean autoAssign = deliveryAgent == null || deliveryAgent.isBlank();
+        User agent;
+        if (autoAssign) {
+            Long agentId = agentAssignmentEngine.assign();
+            if (agentId == null) {
+                throw new IllegalArgumentException("No delivery agents available.");
+            }
+            agent = userRepo.findById(agentId);
+        } else {
+            agent = userRepo.findByUsername(deliveryAgent);
+            if (agent == null || agent.getRole() != User.Role.DELIVERY) {
+                throw new IllegalArgumentException("Delivery agent not found: " + deliveryAgent);
+            }
         }
 
         if (request.getRetailer() == null || request.getDistributor() == null || request.getProduct() == null) {
@@ -75,60 +133,148 @@ public class OrderService {
             order.setDistributor(request.getDistributor());
             order.setProduct(request.getProduct());
             order.setQuantity(request.getQuantity());
-            order.setOrderNumber(UUID.randomUUID().toString().substring(0, 8));
+            order.setOrderNumber(orderNumberGenerator.next());
             order.setDeliveryAgent(agent);
             order.setPrice(request.getPrice());
 
-            request.setOrderCheck(true);
-            requestRepo.save(request);
-           return orderRepo.save(order);
+            Order saved = orderRepo.save(order);
+            if (!autoAssign) {
+                agentAssignmentEngine.assigned(agent.getId());
+            }
+            publishStatus(saved);
+            return saved;
         } catch (Exception e) {
             throw new RuntimeException("Failed to create order from request: " + e.getMessage(), e);
         }
     }
 
-    public List<Order> findByDistributor(String username){
-        User distributor = userRepo.findByUsername(username);
-        return orderRepo.findAllByDistributor_Id(distributor.getId());
+    public List<Order> findByDistributor(Long distributorId){
+        return orderRepo.findAllByDistributor_Id(distributorId);
     }
 
-    public String updateOrderStatus(Long orderId, String status, String username) {
+    // One conditional UPDATE moves the order; when it matches nothing the order is read to say why
+    @Transactional
+    public String updateOrderStatus(Long orderId, String status, Long agentId) {
+        Order.Status newStatus = agentTarget(status);
+        Set<Order.Status> allowed = StatusTransitions.from(newStatus);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = newStatus == Order.Status.DELIVERED
+                ? orderRepo.transitionToDelivered(orderId, agentId, allowed, now)
+                : orderRepo.transitionToDispatched(orderId, agentId, allowed, now);
+
         Order order = orderRepo.findById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with ID: " + orderId));
+        if (updated == 0) {
+            if (order.getDeliveryAgent() == null || !order.getDeliveryAgent().getId().equals(agentId)) {
+                throw new SecurityException("You are not assigned to this order.");
+            }
+            if (order.getStatus() == Order.Status.DELIVERED) {
+                throw new IllegalStateException("Order already delivered. Status cannot be changed.");
+            }
+            if (order.getStatus() == newStatus) {
+                throw new IllegalStateException("Order already in " + newStatus + " status.");
+            }
+            throw new IllegalStateException("Order cannot move from " + order.getStatus() + " to " + newStatus + ".");
+        }
 
-        User currentUser = userRepo.findByUsername(username);
+        if (newStatus == Order.Status.DELIVERED) {
+            agentAssignmentEngine.delivered(agentId);
+            stockService.updateRetailerStockFromOrder(orderId);
+        }
+        AfterCommit.run(() -> publishStatus(order));
+        return "Order Statuss updated to " + newStatus;
+    }
 
-        if (order.getDeliveryAgent() == null || !order.getDeliveryAgent().getId().equals(currentUser.getId())) {
-            throw new SecurityException("You are not assigned to this order.");
+    // Moves many of an agent's orders to the same status: one read, one conditional UPDATE and, for
+    // deliveries, one batch of stock changes. Orders that cannot move are reported, not failed.
+    @Transactional
+    public List<OrderTransitionResultDTO> updateOrderStatuses(List<Long> orderIds, String status, Long agentId) {
+        if (orderIds.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Order ids must not be null");
         }
+        Order.Status target = agentTarget(status);
+        Set<Order.Status> allowed = StatusTransitions.from(target);
 
-        Order.Status newStatus;
-        try {
-            newStatus = Order.Status.valueOf(status.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Invalid status value: " + status);
+        Map<Long, OrderTransitionRow> rows = orderRepo.findTransitionRows(new HashSet<>(orderIds)).stream()
+                .collect(Collectors.toMap(OrderTransitionRow::orderId, Function.identity()));
+        // One result per input id, in input order; positions lets the CONFLICT pass replace an id's result in place
+        List<OrderTransitionResultDTO> results = new ArrayList<>(orderIds.size());
+        Map<Long, Integer> positions = new HashMap<>();
+        Set<Long> candidates = new HashSet<>();
+        for (Long orderId : orderIds) {
+            if (positions.containsKey(orderId)) {
+                results.add(new OrderTransitionResultDTO(orderId, null, target, OrderTransitionResultDTO.Outcome.DUPLICATE));
+                continue;
+            }
+            OrderTransitionRow row = rows.get(orderId);
+            OrderTransitionResultDTO.Outcome outcome;
+            if (row == null) {
+                outcome = OrderTransitionResultDTO.Outcome.NOT_FOUND;
+            } else if (row.agentId() == null || !row.agentId().equals(agentId)) {
+                outcome = OrderTransitionResultDTO.Outcome.NOT_ASSIGNED;
+            } else if (!allowed.contains(row.status())) {
+                outcome = OrderTransitionResultDTO.Outcome.INVALID_TRANSITION;
+            } else {
+                candidates.add(orderId);
+                outcome = OrderTransitionResultDTO.Outcome.UPDATED;
+            }
+            positions.put(orderId, results.size());
+            results.add(new OrderTransitionResultDTO(orderId, row != null ? row.status() : null, target, outcome));
         }
 
-        if (order.getStatus() == Order.Status.DELIVERED) {
-            throw new IllegalStateException("Order already delivered. Status cannot be changed.");
+        if (!candidates.isEmpty()) {
+            String column = target == Order.Status.DELIVERED ? "delivered_at" : "dispatched_at";
+            List<Long> updated = jdbcTemplate.queryForList(String.format(TRANSITION_ORDERS, column),
+                    new MapSqlParameterSource()
+                            .addValue("target", target.name())
+                            .addValue("now", new Timestamp(System.currentTimeMillis()))
+                            .addValue("orderIds", candidates)
+                            .addValue("agentId", agentId)
+                            .addValue("allowed", allowed.stream().map(Enum::name).toList()),
+                    Long.class);
+            Set<Long> updatedIds = new HashSet<>(updated);
+            List<DeliveryRow> deliveries = new ArrayList<>();
+            for (Long orderId : candidates) {
+                OrderTransitionRow row = rows.get(orderId);
+                if (!updatedIds.contains(orderId)) {
+                    // Changed by someone else between the read and the update
+                    results.set(positions.get(orderId), new OrderTransitionResultDTO(orderId, row.status(), target,
+                            OrderTransitionResultDTO.Outcome.CONFLICT));
+                    continue;
+                }
+                if (target == Order.Status.DELIVERED) {
+                    deliveries.add(new DeliveryRow(row.retailerId(), row.productId(), row.quantity(),
+                            row.minThreshold(), row.expiryDate()));
+                    agentAssignmentEngine.delivered(agentId);
+                }
+                StatusChangeDTO change = new StatusChangeDTO(orderId, target.name(), row.productId(), row.quantity());
+                AfterCommit.run(() -> alertStreamService.publish(AlertEvent.Type.ORDER_STATUS, change,
+                        row.retailerId(), row.distributorId(), agentId));
+            }
+            stockService.applyDeliveries(deliveries);
         }
 
-        if (order.getStatus() == newStatus) {
-            throw new IllegalStateException("Order already in " + newStatus + " status.");
+        return results;
+    }
+
+    private Order.Status agentTarget(String status) {
+        Order.Status target;
+        try {
+            target = Order.Status.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status value: " + status);
         }
-        // Set timestamps if needed
-        if (newStatus == Order.Status.DISPATCHED) {
-            order.setDispatchedAt(new Timestamp(System.currentTimeMillis()));
-            order.setStatus(newStatus);
-        } else if (newStatus == Order.Status.DELIVERED) {
-            // Use a simpler timestamp format without timezone information
-            order.setDeliveredAt(Timestamp.from(Instant.now()));
-            order.setStatus(newStatus);
+        if (!AGENT_TARGETS.contains(target)) {
+            throw new IllegalArgumentException("Orders cannot be moved to " + target + " by a delivery agent.");
         }
-        orderRepo.save(order);
-        stockService.updateRetailerStockFromOrder(orderId);
+        return target;
+    }
 
-        return "Order Statuss updated to " + newStatus;
+    public void publishStatus(Order order) {
+        alertStreamService.publish(AlertEvent.Type.ORDER_STATUS,
+                new StatusChangeDTO(order.getOrderId(), order.getStatus().name(), order.getProduct().getId(), order.getQuantity()),
+                order.getRetailer().getId(), order.getDistributor().getId(),
+                order.getDeliveryAgent() != null ? order.getDeliveryAgent().getId() : null);
     }
 
 
@@ -1,20 +1,21 @@
 package com.backend.java_backend.Services;
 import com.backend.java_backend.Classes.Order;
 import com.backend.java_backend.Classes.Payment;
-import com.backend.java_backend.Classes.User;
 import com.backend.java_backend.DTOs.PaymentDTO;
 import com.backend.java_backend.Repos.OrderRepo;
 import com.backend.java_backend.Repos.PaymentRepo;
-import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Utils.StatusTransitions;
 import com.stripe.param.PaymentIntentCreateParams;
 import io.github.cdimascio.dotenv.Dotenv;
-import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -22,56 +23,84 @@ import java.sql.Timestamp;
 @Service
 public class PaymentService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
     @Autowired
     private PaymentRepo paymentRepo;
 
     @Autowired
-    private UserRepo userRepo;
+    private OrderRepo orderRepo;
 
     @Autowired
-    private OrderRepo orderRepo;
+    private CustomUserDetailsService userDetailsService;
 
-    @Value("${stripe.api.key}")
-    String apiKey;
+    @Autowired
+    private OrderService orderService;
 
-    @Transactional
-    public PaymentIntent chargeAmount(Long orderId, String username, float amount, String Currency) throws StripeException {
-        Payment payment = new Payment();
-        Stripe.apiKey = apiKey;
-        PaymentIntentCreateParams params = new PaymentIntentCreateParams.Builder()
-                .setAmount((long) (amount * 100))
-                .setCurrency(Currency)
-                .build();
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-        String intentId =  paymentIntent.getId();
-        User user =  userRepo.findByUsername(username);
-        Order order = orderRepo.findByOrderId(orderId);
+    @Value("${stripe.api.key}")
+    String apiKey;
 
-        if (user == null) {
-            throw new IllegalArgumentException("User not found with username: " + username);
-        }
+    // The order is claimed with the conditional UPDATE and committed before Stripe is called, so a second or
+    // concurrent payment of the same order gets a conflict instead of a charge and no lock is held during the
+    // call. If the charge fails, the claim is released again in its own transaction.
+    public PaymentIntent chargeAmount(Long orderId, Long userId, float amount, String Currency) throws StripeException {
+        Timestamp paidAt = new Timestamp(System.currentTimeMillis());
+        Order paid = transactionTemplate.execute(status -> claim(orderId, userId, paidAt));
 
-        if (order == null) {
-            throw new IllegalArgumentException("Order not found with id: " + orderId);
+        PaymentIntent paymentIntent;
+        try {
+            Stripe.apiKey = apiKey;
+            PaymentIntentCreateParams params = new PaymentIntentCreateParams.Builder()
+                    .setAmount((long) (amount * 100))
+                    .setCurrency(Currency)
+                    .build();
+            paymentIntent = PaymentIntent.create(params);
+        } catch (StripeException | RuntimeException e) {
+            release(orderId, paidAt);
+            throw e;
         }
 
         //creating payment object
-        payment.setUser(user);
-        payment.setOrder(order);
+        Payment payment = new Payment();
+        payment.setUser(userDetailsService.getReference(userId));
+        payment.setOrder(paid);
         payment.setGateway("stripe");
-        payment.setTransactionId(intentId);
+        payment.setTransactionId(paymentIntent.getId());
         payment.setAmount(paymentIntent.getAmount());
         payment.setCurrency(paymentIntent.getCurrency().toUpperCase());
         payment.setStatus(Payment.Status.SUCCESS);
         payment.setPaymentMethod(paymentIntent.getPaymentMethod());
-        payment.setPaidAt(order.getPaymentTimestamp());
+        payment.setPaidAt(paidAt);
         payment.setCreatedAt(new Timestamp(System.currentTimeMillis()));
-        paymentRepo.save(payment);
+        transactionTemplate.executeWithoutResult(status -> paymentRepo.save(payment));
 
-        order.setStatus(Order.Status.PAID);
-        order.setPaymentTimestamp(new Timestamp(System.currentTimeMillis()));
-        orderRepo.save(order);
+        orderService.publishStatus(paid);
         return paymentIntent;
     }
+
+    private Order claim(Long orderId, Long userId, Timestamp paidAt) {
+        Order order = orderRepo.findByOrderId(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("Order not found with id: " + orderId);
+        }
+        if (order.getRetailer() == null || !order.getRetailer().getId().equals(userId)) {
+            throw new SecurityException("This order does not belong to you.");
+        }
+        // Only a PENDING order becomes PAID; one already paid or moved on by an agent is not charged again
+        if (orderRepo.transitionToPaid(orderId, StatusTransitions.from(Order.Status.PAID), paidAt) == 0) {
+            throw new IllegalStateException("Order " + orderId + " is no longer awaiting payment.");
+        }
+        return orderRepo.findByOrderId(orderId);
+    }
+
+    private void release(Long orderId, Timestamp paidAt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderRepo.releasePaymentClaim(orderId, paidAt));
+        } catch (RuntimeException e) {
+            logger.error("Could not release the payment claim on order {}", orderId, e);
+        }
+    }
 }
@@ -0,0 +1,558 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.ProductDTO;
+import com.backend.java_backend.DTOs.ProductImportErrorDTO;
+import com.backend.java_backend.DTOs.ProductImportJobDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Imports a distributor's products from a CSV or JSON-lines file as a background job. The upload
+ * is spooled to a temporary file and read one row at a time, so memory does not grow with the
+ * file; rows are upserted by SKU batch-size at a time, one statement and one transaction per
+ * batch, and every rejected row is reported with its line. A SKU repeated within a batch is
+ * rejected; one repeated in a later batch simply updates the product again, last row wins. A SKU
+ * already owned by another distributor is never touched.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String REQUESTED = "EXISTS (SELECT 1 FROM requests r WHERE r.product_id = p.id)";
+
+    // One statement per batch, each column passed as an array. Same rule as ProductService.updateProduct: pricing,
+    // mst and expiry of a product that has requests stay as they are, and on hand never drops below what is
+    // reserved. A SKU owned by another distributor is left alone and comes back as no row; xmax is 0 only for a
+    // row this statement inserted
+    private static final String UPSERT_PRODUCTS =
+            "INSERT INTO products AS p (name, category, sku, barcode, retail_price, cost_price, mst, quantity, " +
+            "expiry_date, image_url, distributor_id, created_at) " +
+            "SELECT t.*, ?, ? FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::float8[], " +
+            "?::float8[], ?::int[], ?::int[], ?::timestamp[], ?::varchar[]) AS t " +
+            "ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, category = EXCLUDED.category, " +
+            "barcode = EXCLUDED.barcode, quantity = GREATEST(EXCLUDED.quantity, p.reserved_quantity), " +
+            "image_url = COALESCE(EXCLUDED.image_url, p.image_url), " +
+            "retail_price = CASE WHEN " + REQUESTED + " THEN p.retail_price ELSE EXCLUDED.retail_price END, " +
+            "cost_price = CASE WHEN " + REQUESTED + " THEN p.cost_price ELSE EXCLUDED.cost_price END, " +
+            "mst = CASE WHEN " + REQUESTED + " THEN p.mst ELSE EXCLUDED.mst END, " +
+            "expiry_date = CASE WHEN " + REQUESTED + " THEN p.expiry_date ELSE EXCLUDED.expiry_date END " +
+            "WHERE p.distributor_id = EXCLUDED.distributor_id " +
+            "RETURNING p.id, p.sku, p.name, p.category, p.barcode, p.retail_price, p.quantity, p.expiry_date, " +
+            "p.image_url, p.xmax = 0 AS inserted";
+
+    // Element types of the unnest arrays, in column order
+    private static final String[] COLUMN_TYPES =
+            {"varchar", "varchar", "varchar", "varchar", "float8", "float8", "int4", "int4", "timestamp", "varchar"};
+
+    private enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    private record Row(long line, ProductDTO product) {
+    }
+
+    // Outcome of one batch, counted into the job only once its transaction has committed
+    private record Written(int inserted, int updated, List<ProductImportErrorDTO> errors) {
+    }
+
+    @Autowired
+    private ExpiryEngine expiryEngine;
+    @Autowired
+    private ReservationLedger reservationLedger;
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private BarcodeIndex barcodeIndex;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${products.import.batch-size:500}")
+    private int batchSize;
+    @Value("${products.import.max-errors:1000}")
+    private int maxErrors;
+    @Value("${products.import.max-jobs:100}")
+    private int maxJobs;
+
+    private final ExecutorService workers;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final LongAdder rowsImported = new LongAdder();
+    private final LongAdder rowsFailed = new LongAdder();
+
+    public ProductImportService(@Value("${products.import.threads:2}") int threads) {
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "product-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Spools the upload to disk and queues it; the returned job is polled for progress
+    public ProductImportJobDTO submit(Long distributorId, MultipartFile file) throws IOException {
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
+        Format format = formatOf(fileName, file.getContentType());
+        Path spooled = Files.createTempFile("product-import-", format == Format.CSV ? ".csv" : ".jsonl");
+        try {
+            file.transferTo(spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), distributorId, fileName);
+        evictFinished();
+        jobs.put(job.id, job);
+        workers.submit(() -> run(job, spooled, format));
+        return job.view();
+    }
+
+    // Only the distributor that submitted a job can see it
+    public ProductImportJobDTO find(String jobId, Long distributorId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.distributorId.equals(distributorId) ? job.view() : null;
+    }
+
+    private static Format formatOf(String fileName, String contentType) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv") || "text/csv".equals(contentType)) {
+            return Format.CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || "application/x-ndjson".equals(contentType)) {
+            return Format.JSON_LINES;
+        }
+        throw new IllegalArgumentException("Only .csv and .jsonl files can be imported.");
+    }
+
+    private void run(Job job, Path spooled, Format format) {
+        job.status = ProductImportJobDTO.Status.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        // SKUs in the current batch only, so memory stays bounded by the batch size: one upsert cannot touch the
+        // same row twice, so a repeat within a batch is reported, while a repeat in a later batch updates the product
+        Set<String> seen = new HashSet<>(batchSize * 2);
+        List<Row> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(spooled, StandardCharsets.UTF_8)) {
+            RowReader rows = format == Format.CSV ? new CsvRowReader(reader) : new JsonRowReader(reader);
+            while (rows.next()) {
+                job.rowsRead.incrementAndGet();
+                Row row;
+                try {
+                    row = rows.row();
+                } catch (IllegalArgumentException e) {
+                    job.error(rows.line(), null, e.getMessage());
+                    continue;
+                }
+                String problem = validate(row.product());
+                if (problem == null && !seen.add(row.product().getSku())) {
+                    problem = "SKU appears earlier in the same batch";
+                }
+                if (problem != null) {
+                    job.error(row.line(), row.product().getSku(), problem);
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() >= batchSize) {
+                    flush(job, batch);
+                    batch = new ArrayList<>(batchSize);
+                    seen.clear();
+                }
+            }
+            flush(job, batch);
+            job.status = ProductImportJobDTO.Status.COMPLETED;
+        } catch (Exception e) {
+            logger.error("Product import {} failed", job.id, e);
+            job.message = e.getMessage();
+            job.status = ProductImportJobDTO.Status.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                logger.warn("Could not delete spooled import {}", spooled, e);
+            }
+        }
+        logger.info("Product import {} ({}) {}: {} rows, {} inserted, {} updated, {} failed", job.id, job.fileName,
+                job.status, job.rowsRead.get(), job.inserted.get(), job.updated.get(), job.failed.get());
+    }
+
+    private static String validate(ProductDTO product) {
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            return "SKU is required";
+        }
+        product.setSku(product.getSku().trim());
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Name is required";
+        }
+        if (product.getRetail_price() < 0 || product.getCost_price() < 0) {
+            return "Prices cannot be negative";
+        }
+        if (product.getMst() < 0 || product.getQuantity() < 0) {
+            return "Quantity and mst cannot be negative";
+        }
+        return null;
+    }
+
+    // Writes one batch in its own transaction; if the batch fails as a whole, its rows are retried one by one
+    // so a single bad row costs only itself
+    private void flush(Job job, List<Row> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Written written = transactionTemplate.execute(status -> write(job.distributorId, batch));
+            job.inserted.addAndGet(written.inserted());
+            job.updated.addAndGet(written.updated());
+            rowsImported.add(written.inserted() + written.updated());
+            written.errors().forEach(error -> job.error(error.line(), error.sku(), error.message()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                Row row = batch.get(0);
+                job.error(row.line(), row.product().getSku(), rootMessage(e));
+                return;
+            }
+            batch.forEach(row -> flush(job, List.of(row)));
+        }
+    }
+
+    // Rows for another distributor's SKU come back as errors instead of being written
+    private Written write(Long distributorId, List<Row> batch) {
+        int size = batch.size();
+        Object[][] columns = new Object[10][size];
+        for (int i = 0; i < size; i++) {
+            ProductDTO product = batch.get(i).product();
+            columns[0][i] = product.getName().trim();
+            columns[1][i] = product.getCategory();
+            columns[2][i] = product.getSku();
+            columns[3][i] = product.getBarcode();
+            columns[4][i] = product.getRetail_price();
+            columns[5][i] = product.getCost_price();
+            columns[6][i] = product.getMst();
+            columns[7][i] = product.getQuantity();
+            columns[8][i] = product.getExpiry_date() != null ? Timestamp.valueOf(product.getExpiry_date()) : null;
+            columns[9][i] = product.getImageurl();
+        }
+        PreparedStatementCreator upsert = connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_PRODUCTS);
+            statement.setLong(1, distributorId);
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            for (int c = 0; c < columns.length; c++) {
+                statement.setArray(c + 3, connection.createArrayOf(COLUMN_TYPES[c], columns[c]));
+            }
+            return statement;
+        };
+
+        User distributor = userDetailsService.getReference(distributorId);
+        Map<String, Boolean> written = new HashMap<>();
+        Set<String> categories = new HashSet<>();
+        jdbcTemplate.getJdbcTemplate().query(upsert, rs -> {
+            Product product = new Product();
+            product.setId(rs.getLong("id"));
+            product.setSku(rs.getString("sku"));
+            product.setName(rs.getString("name"));
+            product.setCategory(rs.getString("category"));
+            product.setBarcode(rs.getString("barcode"));
+            product.setRetail_price(rs.getDouble("retail_price"));
+            product.setQuantity(rs.getInt("quantity"));
+            Timestamp expiry = rs.getTimestamp("expiry_date");
+            product.setExpiry_date(expiry != null ? expiry.toLocalDateTime() : null);
+            product.setImageUrl(rs.getString("image_url"));
+            product.setDistributor(distributor);
+            boolean inserted = rs.getBoolean("inserted");
+            written.put(product.getSku(), inserted);
+
+            // Same follow-up as a single product write, applied once this batch commits
+            expiryEngine.update(product);
+            productSearchIndex.update(product);
+            barcodeIndex.update(product);
+            if (!inserted) {
+                reservationLedger.invalidate(product.getId());
+                catalogCache.invalidateProduct(product.getId());
+            }
+            categories.add(product.getCategory());
+        });
+        categories.forEach(catalogCache::invalidate);
+
+        int inserted = 0;
+        List<ProductImportErrorDTO> errors = new ArrayList<>();
+        for (Row row : batch) {
+            Boolean outcome = written.get(row.product().getSku());
+            if (outcome == null) {
+                errors.add(new ProductImportErrorDTO(row.line(), row.product().getSku(), "SKU belongs to another distributor"));
+            } else if (outcome) {
+                inserted++;
+            }
+        }
+        return new Written(inserted, written.size() - inserted, errors);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+
+    private void evictFinished() {
+        if (jobs.size() < maxJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted((a, b) -> a.finishedAt.compareTo(b.finishedAt))
+                .limit(jobs.size() - maxJobs + 1L)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("jobs", jobs.size());
+        stats.put("running", jobs.values().stream()
+                .filter(job -> job.status == ProductImportJobDTO.Status.RUNNING).count());
+        stats.put("queued", jobs.values().stream()
+                .filter(job -> job.status == ProductImportJobDTO.Status.QUEUED).count());
+        stats.put("rowsImported", rowsImported.sum());
+        stats.put("rowsFailed", rowsFailed.sum());
+        stats.put("batchSize", batchSize);
+        return stats;
+    }
+
+    private final class Job {
+        private final String id;
+        private final Long distributorId;
+        private final String fileName;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile ProductImportJobDTO.Status status = ProductImportJobDTO.Status.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String message;
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        // Only the first max-errors are kept; failed counts them all
+        private final List<ProductImportErrorDTO> errors = new ArrayList<>();
+
+        private Job(String id, Long distributorId, String fileName) {
+            this.id = id;
+            this.distributorId = distributorId;
+            this.fileName = fileName;
+        }
+
+        private void error(long line, String sku, String message) {
+            failed.incrementAndGet();
+            rowsFailed.increment();
+            synchronized (errors) {
+                if (errors.size() < maxErrors) {
+                    errors.add(new ProductImportErrorDTO(line, sku, message));
+                }
+            }
+        }
+
+        private ProductImportJobDTO view() {
+            List<ProductImportErrorDTO> copy;
+            synchronized (errors) {
+                copy = List.copyOf(errors);
+            }
+            return new ProductImportJobDTO(id, fileName, status, rowsRead.get(), inserted.get(), updated.get(),
+                    failed.get(), copy, failed.get() > copy.size(), message, submittedAt, startedAt, finishedAt);
+        }
+    }
+
+    // Rows of an import file, read one at a time
+    private interface RowReader {
+        // Advances to the next row; false at the end of the file
+        boolean next() throws IOException;
+
+        // The current row; IllegalArgumentException if it cannot be read as a product
+        Row row();
+
+        long line();
+    }
+
+    private final class JsonRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final ObjectReader json = objectMapper.readerFor(ProductDTO.class);
+        private String current;
+        private long line;
+
+        private JsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            do {
+                current = reader.readLine();
+                line++;
+            } while (current != null && current.isBlank());
+            return current != null;
+        }
+
+        @Override
+        public Row row() {
+            try {
+                return new Row(line, json.readValue(current));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Not a valid product: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+    }
+
+    // RFC 4180 records: comma separated, double-quoted fields may hold commas, quotes ("") and line breaks.
+    // The header names the columns after the product fields (name, sku, retail_price, ...), in any order
+    private final class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private List<String> header;
+        private List<String> current;
+        private long line;
+        private long start;
+
+        private CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (header == null) {
+                List<String> names = record();
+                if (names == null) {
+                    return false;
+                }
+                header = new ArrayList<>(names.size());
+                for (String name : names) {
+                    // A byte order mark is read as part of the first column name
+                    header.add(name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT));
+                }
+            }
+            do {
+                current = record();
+            } while (current != null && current.size() == 1 && current.get(0).isBlank());
+            return current != null;
+        }
+
+        @Override
+        public Row row() {
+            if (current.size() > header.size()) {
+                throw new IllegalArgumentException("Row has " + current.size() + " columns, the header " + header.size());
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < current.size(); i++) {
+                String value = current.get(i).trim();
+                if (!value.isEmpty()) {
+                    fields.put(header.get(i), value);
+                }
+            }
+            try {
+                return new Row(start, objectMapper.convertValue(fields, ProductDTO.class));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Not a valid product: " + rootMessage(e));
+            }
+        }
+
+        @Override
+        public long line() {
+            return start;
+        }
+
+        private List<String> record() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            start = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (quoted) {
+                        if (c != '"') {
+                            field.append(c);
+                        } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                // The line break is part of a quoted field; the record goes on on the next line
+                text = reader.readLine();
+                if (text == null) {
+                    throw new IOException("Unterminated quoted field starting on line " + start);
+                }
+                line++;
+                field.append('\n');
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
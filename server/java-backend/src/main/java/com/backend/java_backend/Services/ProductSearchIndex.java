@@ -0,0 +1,362 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.DTOs.ProductSearchResultDTO;
+import com.backend.java_backend.DTOs.ProductSearchRow;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search over product name words, SKU and barcode. Terms live in a sorted map, so a
+ * prefix is one range scan, and in a trigram index, so terms within one or two typos of the query
+ * are found without scanning every term. Hits are ranked exact, then prefix, then fuzzy. Kept in
+ * sync by {@link ProductService} writes after commit and rebuilt from the table periodically to
+ * pick up writes made by other nodes.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    // Field tags in front of every term, so one sorted map holds all three fields
+    private static final char NAME = 'n';
+    private static final char SKU = 's';
+    private static final char BARCODE = 'b';
+
+    private static final int EXACT = 100;
+    private static final int PREFIX = 60;
+    private static final int FUZZY = 40;
+    // SKU and barcode matches are more specific than a word of a name
+    private static final int CODE_BONUS = 20;
+
+    private static final int MIN_COMMON_GRAM = 100;
+    private static final int MAX_PREFIX_CANDIDATES = 1000;
+
+    private static final class Index {
+        private final Map<Long, ProductSearchRow> docs = new ConcurrentHashMap<>();
+        private final Map<Long, List<String>> termsOf = new ConcurrentHashMap<>();
+        private final NavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+        private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+
+        private void put(ProductSearchRow row) {
+            remove(row.id());
+            List<String> terms = terms(row);
+            docs.put(row.id(), row);
+            termsOf.put(row.id(), terms);
+            for (String term : terms) {
+                Set<Long> ids = postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet());
+                if (ids.isEmpty()) {
+                    for (String gram : grams(term.substring(2))) {
+                        trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(term);
+                    }
+                }
+                ids.add(row.id());
+            }
+        }
+
+        private void remove(long id) {
+            docs.remove(id);
+            List<String> terms = termsOf.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Set<Long> left = postings.computeIfPresent(term, (t, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+                if (left == null) {
+                    for (String gram : grams(term.substring(2))) {
+                        trigrams.computeIfPresent(gram, (g, grammed) -> {
+                            grammed.remove(term);
+                            return grammed.isEmpty() ? null : grammed;
+                        });
+                    }
+                }
+            }
+        }
+    }
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    private volatile Index index = new Index();
+    // Changes applied while a rebuild reads the table, replayed onto the new index before the swap; guarded by this
+    private List<Consumer<Index>> replay;
+    private final Object rebuildLock = new Object();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final AtomicLong maxSearchNanos = new AtomicLong();
+    private volatile long lastRebuildAt;
+    private volatile long lastRebuildMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${product.search.resync-ms:600000}",
+            fixedDelayString = "${product.search.resync-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.currentTimeMillis();
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            Index fresh = new Index();
+            productRepo.findSearchRows().forEach(fresh::put);
+            synchronized (this) {
+                replay.forEach(change -> change.accept(fresh));
+                replay = null;
+                index = fresh;
+            }
+            lastRebuildAt = System.currentTimeMillis();
+            lastRebuildMs = lastRebuildAt - started;
+            logger.info("Product search index built with {} products in {} ms", fresh.docs.size(), lastRebuildMs);
+        }
+    }
+
+    // Values are captured now but applied only once the surrounding transaction commits
+    public void update(Product product) {
+        ProductSearchRow row = ProductSearchRow.from(product);
+        AfterCommit.run(() -> apply(i -> i.put(row)));
+    }
+
+    public void remove(long productId) {
+        AfterCommit.run(() -> apply(i -> i.remove(productId)));
+    }
+
+    private synchronized void apply(Consumer<Index> change) {
+        change.accept(index);
+        if (replay != null) {
+            replay.add(change);
+        }
+    }
+
+    // Ranked hits from offset, at most limit of them; category, if given, must match exactly
+    public List<ProductSearchResultDTO> search(String query, String category, int offset, int limit) {
+        long started = System.nanoTime();
+        Index current = index;
+        String whole = normalize(query);
+        Map<Long, Integer> scores = new HashMap<>();
+
+        // SKUs and barcodes are matched whole, punctuation included
+        if (!whole.isEmpty()) {
+            int enough = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit + 1);
+            match(current, SKU, whole, CODE_BONUS, enough).forEach((id, score) -> scores.merge(id, score, Math::max));
+            match(current, BARCODE, whole, CODE_BONUS, enough).forEach((id, score) -> scores.merge(id, score, Math::max));
+        }
+        // Every word of the query has to match a word of the name
+        Map<Long, Integer> byName = null;
+        for (String word : words(whole)) {
+            Map<Long, Integer> matched = match(current, NAME, word, 0, Integer.MAX_VALUE);
+            if (byName == null) {
+                byName = matched;
+            } else {
+                Map<Long, Integer> both = new HashMap<>();
+                for (Map.Entry<Long, Integer> entry : byName.entrySet()) {
+                    Integer score = matched.get(entry.getKey());
+                    if (score != null) {
+                        both.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                byName = both;
+            }
+        }
+        if (byName != null) {
+            byName.forEach((id, score) -> scores.merge(id, score, Math::max));
+        }
+
+        List<ProductSearchResultDTO> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            ProductSearchRow row = current.docs.get(id);
+            if (row != null && (category == null || category.equals(row.category()))) {
+                hits.add(ProductSearchResultDTO.of(row, score));
+            }
+        });
+        hits.sort(Comparator.comparingInt(ProductSearchResultDTO::score).reversed()
+                .thenComparingLong(ProductSearchResultDTO::id));
+        List<ProductSearchResultDTO> page = hits.subList(Math.min(offset, hits.size()),
+                (int) Math.min(hits.size(), (long) offset + limit));
+
+        long took = System.nanoTime() - started;
+        searches.increment();
+        searchNanos.add(took);
+        maxSearchNanos.accumulateAndGet(took, Math::max);
+        return List.copyOf(page);
+    }
+
+    // Best score per product for one term of the query in one field. Fuzzy hits always score below exact and
+    // prefix ones, so they are not looked for once those alone reach enough products
+    private Map<Long, Integer> match(Index current, char field, String text, int bonus, int enough) {
+        Map<Long, Integer> scores = new HashMap<>();
+        String key = field + ":" + text;
+        for (Map.Entry<String, Set<Long>> entry : current.postings.subMap(key, true, key + Character.MAX_VALUE, true).entrySet()) {
+            String term = entry.getKey().substring(2);
+            // Shorter completions rank above longer ones
+            int score = term.length() == text.length() ? EXACT : PREFIX + 10 * text.length() / term.length();
+            entry.getValue().forEach(id -> scores.merge(id, score + bonus, Math::max));
+        }
+        if (text.length() < 3 || scores.size() >= enough) {
+            return scores;
+        }
+
+        int maxDistance = text.length() <= 5 ? 1 : 2;
+        // Trigrams most terms share (the "sku" of every SKU) say nothing about closeness and are skipped
+        int commonGram = Math.max(MIN_COMMON_GRAM, current.postings.size() / 20);
+        int used = 0;
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams(text)) {
+            Set<String> terms = current.trigrams.get(gram);
+            if (terms == null || terms.size() > commonGram) {
+                continue;
+            }
+            used++;
+            for (String term : terms) {
+                if (term.charAt(0) == field) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        // An edit changes at most three trigrams, so terms sharing fewer cannot be close enough
+        int needed = Math.max(1, used - 3 * maxDistance);
+        List<String> candidates = new ArrayList<>();
+        shared.forEach((term, count) -> {
+            if (count >= needed) {
+                candidates.add(term);
+            }
+        });
+        // Short words have too few trigrams to survive a typo, so terms starting the same way are tried too
+        if (text.length() <= 5) {
+            String start = field + ":" + text.substring(0, 2);
+            current.postings.subMap(start, true, start + Character.MAX_VALUE, true).keySet().stream()
+                    .limit(MAX_PREFIX_CANDIDATES)
+                    .forEach(candidates::add);
+        }
+
+        for (String candidate : candidates) {
+            String term = candidate.substring(2);
+            // Compared whole and, for type-ahead, against the term's start of the same length
+            int distance = Math.min(distance(text, term, maxDistance),
+                    distance(text, term.substring(0, Math.min(term.length(), text.length())), maxDistance));
+            if (distance <= maxDistance) {
+                int score = FUZZY - 10 * distance + bonus;
+                current.postings.getOrDefault(candidate, Set.of())
+                        .forEach(id -> scores.merge(id, score, Math::max));
+            }
+        }
+        return scores;
+    }
+
+    private static List<String> terms(ProductSearchRow row) {
+        List<String> terms = new ArrayList<>();
+        for (String word : words(normalize(row.name()))) {
+            String term = NAME + ":" + word;
+            if (!terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        String sku = normalize(row.sku());
+        if (!sku.isEmpty()) {
+            terms.add(SKU + ":" + sku);
+        }
+        String barcode = normalize(row.barcode());
+        if (!barcode.isEmpty()) {
+            terms.add(BARCODE + ":" + barcode);
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Edit distance counting a swap of neighbours as one edit, or max + 1 as soon as it is known to exceed max
+    private static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int best = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                best = Math.min(best, current[j]);
+            }
+            if (best > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    public Map<String, Object> stats() {
+        Index current = index;
+        long count = searches.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("products", current.docs.size());
+        stats.put("terms", current.postings.size());
+        stats.put("trigrams", current.trigrams.size());
+        stats.put("searches", count);
+        stats.put("avgSearchMs", count == 0 ? 0.0 : searchNanos.sum() / 1e6 / count);
+        stats.put("maxSearchMs", TimeUnit.NANOSECONDS.toMillis(maxSearchNanos.get()));
+        stats.put("lastRebuildAt", lastRebuildAt);
+        stats.put("lastRebuildMs", lastRebuildMs);
+        return stats;
+    }
+}
@@ -3,10 +3,13 @@ import com.backend.java_backend.Classes.Product;
 import com.backend.java_backend.Classes.User;
 import com.backend.java_backend.DTOs.Category;
 import com.backend.java_backend.DTOs.ProductDTO;
+import com.backend.java_backend.DTOs.ProductViewDTO;
 import com.backend.java_backend.Repos.ProductRepo;
 import com.backend.java_backend.Repos.RequestRepo;
 import com.backend.java_backend.Repos.UserRepo;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -27,9 +30,26 @@ public class ProductService {
     @Autowired
     private RequestRepo requestRepo;
 
-    public List<Product> findAll(String username) {
-        User user = userRepo.findByUsername(username);
-        return productRepo.findAllByDistributor_Id(user.getId());
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private ExpiryEngine expiryEngine;
+
+    @Autowired
+    private ReservationLedger reservationLedger;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private BarcodeIndex barcodeIndex;
+
+    public List<Product> findAll(Long distributorId) {
+        return productRepo.findAllByDistributor_Id(distributorId);
     }
 
     public Map<String, Object> deleteProductById(long id) {
@@ -45,6 +65,12 @@ public class ProductService {
         // If no associated requests, proceed with deletion
         int deleted = productRepo.deleteProductById(id);
         boolean success = deleted > 0;
+        if (success) {
+            expiryEngine.removeProduct(id);
+            catalogCache.invalidateProduct(id);
+            productSearchIndex.remove(id);
+            barcodeIndex.removeProduct(id);
+        }
 
         result.put("success", success);
         result.put("message", success ? "The product was deleted successfully" : "Product not found");
@@ -73,6 +99,12 @@ public class ProductService {
         // If no associated requests, proceed with deletion
         int deleted = productRepo.deleteProductBySku(sku);
         boolean success = deleted > 0;
+        if (success) {
+            expiryEngine.removeProduct(product.getId());
+            catalogCache.invalidate(product.getCategory());
+            productSearchIndex.remove(product.getId());
+            barcodeIndex.removeProduct(product.getId());
+        }
 
         result.put("success", success);
         result.put("message", success ? "The product was deleted successfully" : "Product not found");
@@ -84,8 +116,17 @@ public class ProductService {
         return productRepo.findAllByCategory(category.getCategory());
     }
 
-    public Product addProduct(ProductDTO productDTO, String username, String url) {
-        User distributor = userRepo.findByUsername(username);
+    // Served from the catalog cache; a category is read from the database once per ttl or write
+    public List<ProductViewDTO> findPageByCategory(Category category, long afterId, Limit limit) {
+        return catalogCache.page(category.getCategory(), afterId, limit);
+    }
+
+    public List<Product> findPage(Long distributorId, long afterId, Limit limit) {
+        return productRepo.findPageByDistributor_IdAndIdGreaterThanOrderById(distributorId, afterId, limit);
+    }
+
+    public Product addProduct(ProductDTO productDTO, Long distributorId, String url) {
+        User distributor = userDetailsService.getReference(distributorId);
         Product product = new Product();
         product.setName(productDTO.getName());
         product.setCategory(productDTO.getCategory());
@@ -100,14 +141,20 @@ public class ProductService {
         product.setDistributor(distributor);
         product.setCreatedAt(LocalDateTime.now());
 
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        expiryEngine.update(saved);
+        catalogCache.invalidate(saved.getCategory());
+        productSearchIndex.update(saved);
+        barcodeIndex.update(saved);
+        return saved;
     }
 
-    public Product updateProduct(long id, ProductDTO productDTO, String username) {
+    @Transactional
+    public Product updateProduct(long id, ProductDTO productDTO, Long distributorId) {
         Product existingProduct = productRepo.findById(id);
 
         // Check if product exists and belongs to the current user
-        if (existingProduct == null || !existingProduct.getDistributor().getUsername().equals(username)) {
+        if (existingProduct == null || !existingProduct.getDistributor().getId().equals(distributorId)) {
             return null;
         }
 
@@ -159,10 +206,22 @@ public class ProductService {
         // Quantity can be updated but might need special logic
         // For example, ensure quantity doesn't go below what's already requested
         if (productDTO.getQuantity() != 0) {
-            // You might want to implement additional checks here
+            // On hand may not drop below what accepted requests have reserved
+            if (productRepo.setQuantityCoveringReserved(id, productDTO.getQuantity()) == 0) {
+                throw new IllegalArgumentException("Quantity cannot be less than the " + existingProduct.getReserved()
+                        + " unit(s) reserved for accepted requests.");
+            }
             existingProduct.setQuantity(productDTO.getQuantity());
         }
 
-        return productRepo.save(existingProduct);
+        Product saved = productRepo.save(existingProduct);
+        expiryEngine.update(saved);
+        reservationLedger.invalidate(saved.getId());
+        // The category it was cached under and the one it is in now, which differ if it moved
+        catalogCache.invalidateProduct(saved.getId());
+        catalogCache.invalidate(saved.getCategory());
+        productSearchIndex.update(saved);
+        barcodeIndex.update(saved);
+        return saved;
     }
 }
@@ -0,0 +1,285 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.ReorderAlert;
+import com.backend.java_backend.Classes.ScanCheckpoint;
+import com.backend.java_backend.DTOs.ReorderScanRow;
+import com.backend.java_backend.Repos.ScanCheckpointRepo;
+import com.backend.java_backend.Repos.StockRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Walks the whole stocks table in keyset batches and keeps reorder_alerts in line with it.
+ * The key space is split into segments that are scanned in parallel; each segment records
+ * its last key after every batch, so a restarted node resumes the unfinished run.
+ * Only one batch per worker is ever held in memory.
+ */
+@Service
+public class ReorderScanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReorderScanService.class);
+
+    private static final String CHECKPOINT_PREFIX = "reorder-";
+    // Cluster-wide advisory lock so only one backend node runs the scan at a time
+    private static final long SCAN_LOCK_KEY = 0x52454F52L;
+
+    private static final String UPSERT_ALERT =
+            "INSERT INTO reorder_alerts (stock_id, retailer_id, product_id, quantity, min_threshold, mst, reason, scan_run, created_at, updated_at) " +
+            "VALUES (:stockId, :retailerId, :productId, :quantity, :minThreshold, :mst, :reason, :scanRun, now(), now()) " +
+            "ON CONFLICT (stock_id) DO UPDATE SET quantity = EXCLUDED.quantity, min_threshold = EXCLUDED.min_threshold, " +
+            "mst = EXCLUDED.mst, reason = EXCLUDED.reason, scan_run = EXCLUDED.scan_run, updated_at = now()";
+
+    @Autowired
+    private StockRepo stockRepo;
+    @Autowired
+    private ScanCheckpointRepo checkpointRepo;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${reorder.scan.enabled:true}")
+    private boolean enabled;
+    @Value("${reorder.scan.batch-size:1000}")
+    private int batchSize;
+    @Value("${reorder.scan.parallelism:4}")
+    private int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong rowsScanned = new AtomicLong();
+    private final AtomicLong batchesScanned = new AtomicLong();
+    private final AtomicLong alertsRaised = new AtomicLong();
+    private final AtomicLong alertsCleared = new AtomicLong();
+    private volatile Long currentRunId;
+    private volatile long lastRunStartedAt;
+    private volatile long lastRunDurationMs;
+    private volatile long completedRuns;
+
+    @Scheduled(initialDelayString = "${reorder.scan.initial-delay-ms:60000}",
+            fixedDelayString = "${reorder.scan.interval-ms:900000}")
+    public void scheduledScan() {
+        if (enabled) {
+            runScan();
+        }
+    }
+
+    public boolean runScan() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!tryLock(lockConnection)) {
+                logger.info("Reorder scan already running on another node, skipping");
+                return false;
+            }
+            try {
+                scan();
+            } finally {
+                unlock(lockConnection);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error("Reorder scan failed", e);
+            return false;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void scan() throws Exception {
+        long started = System.currentTimeMillis();
+        lastRunStartedAt = started;
+        rowsScanned.set(0);
+        batchesScanned.set(0);
+
+        List<ScanCheckpoint> segments = resumeOrStartRun();
+        if (segments.isEmpty()) {
+            return;
+        }
+        Long runId = segments.get(0).getRunId();
+        currentRunId = runId;
+        logger.info("Reorder scan run {} over {} segment(s)", runId, segments.size());
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, segments.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ScanCheckpoint segment : segments) {
+                futures.add(workers.submit(() -> scanSegment(segment)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdown();
+        }
+
+        // Stocks not seen low in this run (restocked or deleted) lose their alert
+        int cleared = jdbcTemplate.update("DELETE FROM reorder_alerts WHERE scan_run < :runId",
+                new MapSqlParameterSource("runId", runId));
+        alertsCleared.addAndGet(cleared);
+
+        currentRunId = null;
+        completedRuns++;
+        lastRunDurationMs = System.currentTimeMillis() - started;
+        logger.info("Reorder scan run {} finished: {} rows in {} ms", runId, rowsScanned.get(), lastRunDurationMs);
+    }
+
+    private List<ScanCheckpoint> resumeOrStartRun() {
+        List<ScanCheckpoint> existing = checkpointRepo.findAllByNameStartingWithOrderByName(CHECKPOINT_PREFIX);
+        List<ScanCheckpoint> unfinished = existing.stream().filter(c -> !c.isDone()).toList();
+        if (!unfinished.isEmpty()) {
+            logger.info("Resuming reorder scan run {} with {} unfinished segment(s)",
+                    unfinished.get(0).getRunId(), unfinished.size());
+            return unfinished;
+        }
+
+        Long minId = stockRepo.findMinId();
+        Long maxId = stockRepo.findMaxId();
+        if (minId == null || maxId == null) {
+            return List.of();
+        }
+
+        long runId = System.currentTimeMillis();
+        long span = maxId - minId + 1;
+        int segmentCount = (int) Math.max(1, Math.min(parallelism, span));
+        long segmentSize = (span + segmentCount - 1) / segmentCount;
+
+        List<ScanCheckpoint> segments = new ArrayList<>();
+        for (int i = 0; i < segmentCount; i++) {
+            long lower = minId - 1 + i * segmentSize;
+            ScanCheckpoint segment = new ScanCheckpoint();
+            segment.setName(CHECKPOINT_PREFIX + i);
+            segment.setRunId(runId);
+            segment.setLowerKey(lower);
+            segment.setUpperKey(Math.min(lower + segmentSize, maxId));
+            segment.setLastKey(lower);
+            segments.add(segment);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            checkpointRepo.deleteAllByPrefix(CHECKPOINT_PREFIX);
+            checkpointRepo.saveAll(segments);
+        });
+        return segments;
+    }
+
+    private void scanSegment(ScanCheckpoint segment) {
+        long lastKey = segment.getLastKey();
+        long upperKey = segment.getUpperKey();
+        while (true) {
+            List<ReorderScanRow> batch = stockRepo.findScanBatch(lastKey, upperKey, Limit.of(batchSize));
+            boolean done = batch.size() < batchSize;
+            long nextKey = batch.isEmpty() ? upperKey : batch.get(batch.size() - 1).stockId();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                applyBatch(batch, segment.getRunId());
+                checkpointRepo.advance(segment.getName(), nextKey, done);
+            });
+
+            rowsScanned.addAndGet(batch.size());
+            batchesScanned.incrementAndGet();
+            if (done) {
+                return;
+            }
+            lastKey = nextKey;
+        }
+    }
+
+    private void applyBatch(List<ReorderScanRow> batch, Long runId) {
+        List<SqlParameterSource> alerts = new ArrayList<>();
+        List<Long> clearedStockIds = new ArrayList<>();
+        for (ReorderScanRow row : batch) {
+            ReorderAlert.Reason reason = reasonFor(row);
+            if (reason == null) {
+                clearedStockIds.add(row.stockId());
+                continue;
+            }
+            alerts.add(new MapSqlParameterSource()
+                    .addValue("stockId", row.stockId())
+                    .addValue("retailerId", row.retailerId())
+                    .addValue("productId", row.productId())
+                    .addValue("quantity", row.quantity())
+                    .addValue("minThreshold", row.minThreshold())
+                    .addValue("mst", row.mst())
+                    .addValue("reason", reason.name())
+                    .addValue("scanRun", runId));
+        }
+        if (!alerts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_ALERT, alerts.toArray(new SqlParameterSource[0]));
+            alertsRaised.addAndGet(alerts.size());
+        }
+        if (!clearedStockIds.isEmpty()) {
+            int cleared = jdbcTemplate.update("DELETE FROM reorder_alerts WHERE stock_id IN (:ids)",
+                    new MapSqlParameterSource("ids", clearedStockIds));
+            alertsCleared.addAndGet(cleared);
+        }
+    }
+
+    static ReorderAlert.Reason reasonFor(ReorderScanRow row) {
+        boolean belowThreshold = row.quantity() < row.minThreshold();
+        boolean belowMst = row.quantity() < row.mst();
+        if (belowThreshold && belowMst) {
+            return ReorderAlert.Reason.BELOW_BOTH;
+        }
+        if (belowThreshold) {
+            return ReorderAlert.Reason.BELOW_THRESHOLD;
+        }
+        return belowMst ? ReorderAlert.Reason.BELOW_MST : null;
+    }
+
+    private boolean tryLock(Connection connection) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, SCAN_LOCK_KEY);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, SCAN_LOCK_KEY);
+            ps.execute();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("running", running.get());
+        stats.put("currentRunId", currentRunId);
+        stats.put("rowsScanned", rowsScanned.get());
+        stats.put("batchesScanned", batchesScanned.get());
+        stats.put("alertsRaised", alertsRaised.get());
+        stats.put("alertsCleared", alertsCleared.get());
+        stats.put("lastRunStartedAt", lastRunStartedAt);
+        stats.put("lastRunDurationMs", lastRunDurationMs);
+        stats.put("completedRuns", completedRuns);
+        stats.put("batchSize", batchSize);
+        stats.put("parallelism", parallelism);
+        return stats;
+    }
+}
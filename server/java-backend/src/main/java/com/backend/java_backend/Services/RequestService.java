@@ -3,16 +3,25 @@ package com.backend.java_backend.Services;
 import com.backend.java_backend.Classes.Product;
 import com.backend.java_backend.Classes.Request;
 import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.AlertEvent;
 import com.backend.java_backend.DTOs.RequestProductDTO;
+import com.backend.java_backend.DTOs.RequestViewDTO;
+import com.backend.java_backend.DTOs.StatusChangeDTO;
 import com.backend.java_backend.Repos.ProductRepo;
 import com.backend.java_backend.Repos.RequestRepo;
 import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Utils.AfterCommit;
+import com.backend.java_backend.Utils.StatusTransitions;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class RequestService {
@@ -24,14 +33,19 @@ public class RequestService {
     private UserRepo userRepo;
     @Autowired
     private ProductRepo productRepo;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private AlertStreamService alertStreamService;
+    @Autowired
+    private ReservationLedger reservationLedger;
 
     public List<Request> findByStatus(Request.Status status){
         return requestRepo.findAllByStatus(status);
     }
 
-    public List<Request> findAllByRetailerId(String username){
-        User user = userRepo.findByUsername(username);
-        return requestRepo.findAllByRetailer_Id(user.getId());
+    public List<Request> findAllByRetailerId(Long retailerId){
+        return requestRepo.findAllByRetailer_Id(retailerId);
     }
 
     public Boolean deleteByRequestId(Long id){
@@ -39,52 +53,84 @@ public class RequestService {
         return requestRepo.deleteRequestByRequestId(id) > 0;
     }
 
-    public Request generateRequest(String username, RequestProductDTO requestProductDTO){
-        User user = userRepo.findByUsername(username);
-        Product product = productRepo.findById(requestProductDTO.getProductId());
+    // One select checks the product exists and belongs to the distributor, so an unknown id is a 404, not an FK error
+    @Transactional
+    public RequestViewDTO generateRequest(Long retailerId, RequestProductDTO requestProductDTO){
+        Product product = productRepo.findByIdAndDistributor_Id(requestProductDTO.getProductId(),
+                requestProductDTO.getDistributorId());
+        if (product == null) {
+            throw new EntityNotFoundException("Product " + requestProductDTO.getProductId()
+                    + " not found for distributor " + requestProductDTO.getDistributorId());
+        }
         Request request =  new Request();
-        request.setRetailer(user);
-        request.setDistributor(userRepo.findById(requestProductDTO.getDistributorId()));
-        request.setProduct(productRepo.findById(requestProductDTO.getProductId()));
+        request.setRetailer(userDetailsService.getReference(retailerId));
+        request.setDistributor(product.getDistributor());
+        request.setProduct(product);
         request.setQuantity(requestProductDTO.getQuantity());
         request.setPrice(requestProductDTO.getPrice());
-        return requestRepo.save(request);
+        return RequestViewDTO.from(requestRepo.save(request));
     }
 
     public Boolean deleteRequest(long id){
-        Request request = requestRepo.findByRequestId(id);
-        if(request.getStatus() == Request.Status.PENDING || request.getStatus() == Request.Status.REJECTED){
-            // Return true if at least one record was deleted
-            return requestRepo.deleteRequestByRequestId(id) > 0;
-        }
-        return false;
+        // Accepted requests hold a reservation, so only undecided or rejected ones go; checked in the DELETE itself
+        return requestRepo.deleteRequestByRequestIdAndStatusIn(id,
+                List.of(Request.Status.PENDING, Request.Status.REJECTED)) > 0;
     }
 
-    public List<Request> findAllByRetailerIdAndStatus(String username, Request.Status status) {
-        User user = userRepo.findByUsername(username);
-        return requestRepo.findAllByRetailer_IdAndStatus(user.getId(), status);
+    public List<Request> findAllByRetailerIdAndStatus(Long retailerId, Request.Status status) {
+        return requestRepo.findAllByRetailer_IdAndStatus(retailerId, status);
     }
 
+    // The status changes with one conditional UPDATE, so of two concurrent decisions on a request only one wins.
+    // Accepting reserves the quantity and rejecting an accepted request releases it, in the same transaction.
+    @Transactional
     public void updateRequestStatus(String status, long id) {
-        Request request = requestRepo.findByRequestId(id);
-        //find product quantity
-        Product product = productRepo.findById(request.getProduct().getId());
-        //match quantity of distributor
-        if(product.getQuantity() < request.getQuantity()){
-            throw new IllegalArgumentException("Product quantity less than request quantity");
-        }
+        Request.Status newStatus;
         try {
-            Request.Status newStatus = Request.Status.valueOf(status.toUpperCase());
-            request.setStatus(newStatus);
-            requestRepo.save(request);
+            newStatus = Request.Status.valueOf(status.toUpperCase());
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid status value: " + status);
         }
+        Request request = requestRepo.findByRequestId(id);
+        if (request == null) {
+            throw new IllegalArgumentException("Request not found with ID: " + id);
+        }
+        Request.Status current = request.getStatus();
+        if (!StatusTransitions.from(newStatus).contains(current) || request.isOrderCheck()) {
+            throw new IllegalStateException("Request cannot move from " + current + " to " + newStatus + ".");
+        }
+        long productId = request.getProduct().getId();
+        int quantity = request.getQuantity();
+        StatusChangeDTO change = new StatusChangeDTO(id, newStatus.name(), productId, quantity);
+        Long retailerId = request.getRetailer().getId();
+        Long distributorId = request.getDistributor().getId();
+
+        if (newStatus == Request.Status.ACCEPTED && !reservationLedger.reserve(productId, quantity)) {
+            throw new IllegalArgumentException("Product quantity less than request quantity");
+        }
+        // Only from the status read above, so a release always matches a reservation
+        if (requestRepo.transition(id, newStatus, Set.of(current), LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Request was changed by someone else, try again.");
+        }
+        if (current == Request.Status.ACCEPTED) {
+            reservationLedger.release(productId, quantity);
+        }
+        AfterCommit.run(() -> alertStreamService.publish(AlertEvent.Type.REQUEST_STATUS, change, retailerId, distributorId));
+    }
+
+    public List<Request> findAllByDistributor_Id(Long distributorId) {
+        return requestRepo.findAllByDistributor_Id(distributorId);
+    }
+
+    public List<Request> findPageByRetailerId(Long retailerId, Request.Status status, long afterId, Limit limit) {
+        if (status != null) {
+            return requestRepo.findPageByRetailer_IdAndStatusAndRequestIdGreaterThanOrderByRequestId(retailerId, status, afterId, limit);
+        }
+        return requestRepo.findPageByRetailer_IdAndRequestIdGreaterThanOrderByRequestId(retailerId, afterId, limit);
     }
 
-    public List<Request> findAllByDistributor_Id(String username) {
-        User distributor = userRepo.findByUsername(username);
-        return requestRepo.findAllByDistributor_Id(distributor.getId());
+    public List<Request> findPageByDistributorId(Long distributorId, long afterId, Limit limit) {
+        return requestRepo.findPageByDistributor_IdAndRequestIdGreaterThanOrderByRequestId(distributorId, afterId, limit);
     }
 
 }
@@ -0,0 +1,192 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.DTOs.AlertEvent;
+import com.backend.java_backend.DTOs.StatusChangeDTO;
+import com.backend.java_backend.Utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distributor inventory split into on hand (quantity), reserved and shipped per product. Accepting
+ * a request reserves its quantity, rejecting or expiring it releases it, and delivering the order
+ * ships it. Every change is one conditional UPDATE on the product row, so two acceptances can
+ * never reserve the same units. The available quantity last seen for each product is kept in
+ * memory so acceptances for a sold-out product are turned down without a round trip.
+ */
+@Service
+public class ReservationLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationLedger.class);
+
+    // Reserves only while enough is left unreserved; no row means there was not
+    private static final String RESERVE =
+            "UPDATE products SET reserved_quantity = reserved_quantity + :quantity " +
+            "WHERE id = :productId AND quantity - reserved_quantity >= :quantity " +
+            "RETURNING quantity - reserved_quantity";
+
+    // Floored at zero: requests accepted before reservations existed never reserved anything
+    private static final String RELEASE =
+            "UPDATE products SET reserved_quantity = GREATEST(reserved_quantity - :quantity, 0) " +
+            "WHERE id = :productId RETURNING quantity - reserved_quantity";
+
+    // Single-statement ship of a delivered quantity: it leaves the stock on hand and the reservation, floored
+    // at zero, and is added to the shipped total, so concurrent deliveries never lose an update
+    private static final String SHIP =
+            "UPDATE products SET quantity = GREATEST(quantity - :quantity, 0), " +
+            "reserved_quantity = GREATEST(reserved_quantity - :quantity, 0), " +
+            "shipped_quantity = shipped_quantity + :quantity WHERE id = :productId";
+
+    private static final String AVAILABLE =
+            "SELECT quantity - reserved_quantity FROM products WHERE id = :productId";
+
+    private static final String EXPIRE_REQUESTS =
+            "UPDATE requests SET request_status = 'REJECTED', decided_at = :now " +
+            "WHERE request_status = 'ACCEPTED' AND \"order-check\" = false AND decided_at < :cutoff " +
+            "RETURNING request_id, retailer_id, distributor_id, product_id, quantity";
+
+    private record Available(long quantity, long seenAt) {
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AlertStreamService alertStreamService;
+
+    @Value("${inventory.reservation.cache-ttl-ms:5000}")
+    private long cacheTtlMs;
+    @Value("${inventory.reservation.ttl-hours:168}")
+    private long ttlHours;
+
+    private final Map<Long, Available> available = new ConcurrentHashMap<>();
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rejectedFromCache = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder shipped = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    // Reserves quantity of the product inside the caller's transaction; false if not enough is available
+    public boolean reserve(long productId, int quantity) {
+        Available seen = available.get(productId);
+        if (seen != null && seen.quantity() < quantity
+                && System.currentTimeMillis() - seen.seenAt() < cacheTtlMs) {
+            rejectedFromCache.increment();
+            return false;
+        }
+        MapSqlParameterSource params = params(productId, quantity);
+        List<Long> left = jdbcTemplate.queryForList(RESERVE, params, Long.class);
+        if (left.isEmpty()) {
+            rejected.increment();
+            jdbcTemplate.queryForList(AVAILABLE, params, Long.class).forEach(q -> remember(productId, q));
+            return false;
+        }
+        reserved.increment();
+        AfterCommit.run(() -> remember(productId, left.get(0)));
+        return true;
+    }
+
+    public void release(long productId, int quantity) {
+        List<Long> left = jdbcTemplate.queryForList(RELEASE, params(productId, quantity), Long.class);
+        released.increment();
+        left.forEach(q -> AfterCommit.run(() -> remember(productId, q)));
+    }
+
+    // A delivered quantity leaves both the reservation and the stock on hand
+    public void ship(long productId, int quantity) {
+        ship(Map.of(productId, quantity));
+    }
+
+    // Same for many products, in one batch
+    public void ship(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        // Product order, so concurrent batches lock product rows in the same order
+        jdbcTemplate.batchUpdate(SHIP, new TreeMap<>(quantities).entrySet().stream()
+                .map(e -> params(e.getKey(), e.getValue()))
+                .toArray(SqlParameterSource[]::new));
+        shipped.add(quantities.size());
+        AfterCommit.run(() -> quantities.keySet().forEach(available::remove));
+    }
+
+    // The distributor changed the quantity on hand
+    public void invalidate(long productId) {
+        AfterCommit.run(() -> available.remove(productId));
+    }
+
+    // Accepted requests that were not ordered within ttl-hours are rejected and give their reservation back
+    @Scheduled(initialDelayString = "${inventory.reservation.sweep-ms:3600000}",
+            fixedDelayString = "${inventory.reservation.sweep-ms:3600000}")
+    public void expireReservations() {
+        if (ttlHours <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer count = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(EXPIRE_REQUESTS, new MapSqlParameterSource()
+                    .addValue("now", Timestamp.valueOf(now))
+                    .addValue("cutoff", Timestamp.valueOf(now.minusHours(ttlHours))));
+            // Product order, so concurrent sweeps and acceptances lock product rows in the same order
+            Map<Long, Integer> byProduct = new TreeMap<>();
+            for (Map<String, Object> row : rows) {
+                long productId = ((Number) row.get("product_id")).longValue();
+                int quantity = ((Number) row.get("quantity")).intValue();
+                byProduct.merge(productId, quantity, Integer::sum);
+                StatusChangeDTO change = new StatusChangeDTO(((Number) row.get("request_id")).longValue(),
+                        "REJECTED", productId, quantity);
+                Long retailerId = ((Number) row.get("retailer_id")).longValue();
+                Long distributorId = ((Number) row.get("distributor_id")).longValue();
+                AfterCommit.run(() -> alertStreamService.publish(AlertEvent.Type.REQUEST_STATUS, change,
+                        retailerId, distributorId));
+            }
+            byProduct.forEach(this::release);
+            return rows.size();
+        });
+        if (count != null && count > 0) {
+            expired.add(count);
+            logger.info("Expired {} accepted request(s) older than {}h", count, ttlHours);
+        }
+    }
+
+    private void remember(long productId, long quantity) {
+        available.put(productId, new Available(quantity, System.currentTimeMillis()));
+    }
+
+    private MapSqlParameterSource params(long productId, int quantity) {
+        return new MapSqlParameterSource()
+                .addValue("productId", productId)
+                .addValue("quantity", quantity);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cachedProducts", available.size());
+        stats.put("reserved", reserved.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("rejectedFromCache", rejectedFromCache.sum());
+        stats.put("released", released.sum());
+        stats.put("shipped", shipped.sum());
+        stats.put("expired", expired.sum());
+        return stats;
+    }
+}
@@ -1,25 +1,56 @@
 package com.backend.java_backend.Services;
 
+import com.backend.java_backend.Classes.Logs;
 import com.backend.java_backend.Classes.Order;
 import com.backend.java_backend.Classes.Product;
 import com.backend.java_backend.Classes.Stock;
 import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.AlertEvent;
+import com.backend.java_backend.DTOs.DeliveryRow;
+import com.backend.java_backend.DTOs.LowStockDTO;
 import com.backend.java_backend.DTOs.StockDTO;
 import com.backend.java_backend.Repos.OrderRepo;
 import com.backend.java_backend.Repos.ProductRepo;
 import com.backend.java_backend.Repos.StockRepo;
+import com.backend.java_backend.Utils.AfterCommit;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Service;
 
 import java.security.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class StockService {
 
+    // Namespace for the advisory lock that serialises creating a retailer's first stock of a product
+    private static final int STOCK_CREATE_LOCK_NAMESPACE = 0x5354_4f43;
+
+    private static final String INCREMENT_STOCK =
+            "UPDATE stocks SET quantity = quantity + :quantity, min_threshold = :minThreshold, " +
+            "expiry_date = :expiryDate, created_at = :updatedAt WHERE retailer_id = :retailerId AND product_id = :productId";
+
+    private static final String INSERT_STOCK =
+            "INSERT INTO stocks (retailer_id, product_id, quantity, min_threshold, expiry_date, created_at) " +
+            "VALUES (:retailerId, :productId, :quantity, :minThreshold, :expiryDate, :updatedAt)";
+
+    private record StockKey(Long retailerId, long productId) {
+    }
+
     @Autowired
     private final StockRepo stockRepo;
     @Autowired
@@ -28,6 +59,22 @@ public class StockService {
     private ProductRepo productRepo;
     @Autowired
     private LogsService logsService;
+    @Autowired
+    private LowStockIndex lowStockIndex;
+    @Autowired
+    private AlertStreamService alertStreamService;
+    @Autowired
+    private ExpiryEngine expiryEngine;
+    @Autowired
+    private ReservationLedger reservationLedger;
+    @Autowired
+    private CatalogCache catalogCache;
+    @Autowired
+    private BarcodeIndex barcodeIndex;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
 
     public StockService(StockRepo stockRepo, OrderRepo orderRepo) {
         this.stockRepo = stockRepo;
@@ -43,6 +90,9 @@ public class StockService {
         try {
             if (stockRepo.existsById(stockId)) {
                 stockRepo.deleteById(stockId);
+                lowStockIndex.remove(stockId);
+                expiryEngine.removeStock(stockId);
+                barcodeIndex.removeStock(stockId);
                 return true;
             }
             return false;
@@ -55,8 +105,12 @@ public class StockService {
         return  stockRepo.findByProduct_Id(productId);
     }
 
-    public List<Stock> findAllByRetailerUsername(String retailerUsername) {
-        return stockRepo.findAllByRetailerUsername(retailerUsername);
+    public List<Stock> findPageByRetailerId(Long retailerId, long afterId, Limit limit) {
+        return stockRepo.findPageByRetailer_IdAndIdGreaterThanOrderById(retailerId, afterId, limit);
+    }
+
+    public List<Stock> findPageByProductId(Long productId, long afterId, Limit limit) {
+        return stockRepo.findPageByProduct_IdAndIdGreaterThanOrderById(productId, afterId, limit);
     }
 
     @Transactional
@@ -68,7 +122,9 @@ public class StockService {
         stock.setQuantity(updatedStock.getQuantity());
         stock.setMin_threshold(updatedStock.getMin_threshold());
 
-        return stockRepo.save(stock);
+        Stock saved = stockRepo.save(stock);
+        stockChanged(saved);
+        return saved;
     }
 
 
@@ -84,43 +140,157 @@ public class StockService {
         User user = order.getRetailer();
         Long retailerId = user.getId();
         Product product = order.getProduct();
-        Long productId = product.getId();
+        long productId = product.getId();
         int quantityToAdd = order.getQuantity();
 
-        Stock stock = stockRepo.findByRetailerIdAndProductId(retailerId, productId)
-                .orElseGet(() -> {
-                    Stock newStock = new Stock();
-                    newStock.setRetailer(order.getRetailer());
-                    newStock.setProduct(order.getProduct());
-                    newStock.setQuantity(0);
-                    return newStock;
-                });
-
-        // Update retailer stock
-        int previousQuantity = stock.getQuantity();
-        stock.setQuantity(stock.getQuantity() + quantityToAdd);
-        stock.setCreatedAt(LocalDateTime.now());
-        stock.setMin_threshold(product.getMst());
-        stock.setExpiry_date(product.getExpiry_date());
-        stockRepo.save(stock);
-
-        // Update distributor's product inventory - decrease by the amount added to retailer stock
-        int quantity = product.getQuantity() - quantityToAdd;
-        if(quantity < 0){
-            product.setQuantity(0);
-            productRepo.save(product);
+        int minThreshold = product.getMst();
+        LocalDateTime expiryDate = product.getExpiry_date();
+
+        // Update retailer stock in place; only a missing stock row takes the per-(retailer, product) lock
+        if (stockRepo.addQuantity(retailerId, productId, quantityToAdd, minThreshold, expiryDate, LocalDateTime.now()) == 0) {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(:namespace, :key)",
+                    new MapSqlParameterSource()
+                            .addValue("namespace", STOCK_CREATE_LOCK_NAMESPACE)
+                            .addValue("key", Long.hashCode(retailerId * 31 + productId)));
+            // Another delivery may have created it while we waited for the lock
+            if (stockRepo.addQuantity(retailerId, productId, quantityToAdd, minThreshold, expiryDate, LocalDateTime.now()) == 0) {
+                Stock newStock = new Stock();
+                newStock.setRetailer(userDetailsService.getReference(retailerId));
+                newStock.setProduct(productRepo.getReferenceById(productId));
+                newStock.setQuantity(quantityToAdd);
+                newStock.setMin_threshold(minThreshold);
+                newStock.setExpiry_date(expiryDate);
+                newStock.setCreatedAt(LocalDateTime.now());
+                stockRepo.saveAndFlush(newStock);
+            }
+        }
+
+        // Update distributor's product inventory - the delivered amount leaves its stock on hand and its reservation
+        reservationLedger.ship(productId, quantityToAdd);
+        catalogCache.invalidateProduct(productId);
+
+        // Re-read the rows so the in-memory indexes see the result of the increments
+        stockRepo.findByRetailerIdAndProductId(retailerId, productId).ifPresent(this::stockChanged);
+        expiryEngine.update(productRepo.findById(productId));
+
+    }
+
+    // Applies many deliveries together: one batch of stock increments, the per-(retailer, product) lock only
+    // for stocks that do not exist yet, one batch of product shipments and one re-read for the indexes
+    @Transactional
+    public void applyDeliveries(Collection<DeliveryRow> deliveries) {
+        Map<StockKey, DeliveryRow> byStock = new TreeMap<>(
+                Comparator.comparing(StockKey::retailerId).thenComparingLong(StockKey::productId));
+        Map<Long, Integer> byProduct = new HashMap<>();
+        for (DeliveryRow delivery : deliveries) {
+            byStock.merge(new StockKey(delivery.retailerId(), delivery.productId()), delivery,
+                    (a, b) -> new DeliveryRow(a.retailerId(), a.productId(), a.quantity() + b.quantity(),
+                            a.minThreshold(), a.expiryDate()));
+            byProduct.merge(delivery.productId(), delivery.quantity(), Integer::sum);
+        }
+        if (byStock.isEmpty()) {
+            return;
         }
-        else {
-            product.setQuantity(product.getQuantity() - quantityToAdd);
-            productRepo.save(product);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DeliveryRow> rows = new ArrayList<>(byStock.values());
+        SqlParameterSource[] increments = rows.stream().map(row -> stockParams(row, now))
+                .toArray(SqlParameterSource[]::new);
+        int[] counts = jdbcTemplate.batchUpdate(INCREMENT_STOCK, increments);
+        // Keys are in (retailer, product) order, so concurrent batches take the locks in the same order
+        for (int i = 0; i < rows.size(); i++) {
+            if (counts[i] != 0) {
+                continue;
+            }
+            DeliveryRow row = rows.get(i);
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(:namespace, :key)",
+                    new MapSqlParameterSource()
+                            .addValue("namespace", STOCK_CREATE_LOCK_NAMESPACE)
+                            .addValue("key", Long.hashCode(row.retailerId() * 31 + row.productId())));
+            if (jdbcTemplate.update(INCREMENT_STOCK, increments[i]) == 0) {
+                jdbcTemplate.update(INSERT_STOCK, increments[i]);
+            }
         }
 
+        reservationLedger.ship(byProduct);
+        byProduct.keySet().forEach(catalogCache::invalidateProduct);
+
+        Set<Long> retailerIds = new LinkedHashSet<>();
+        byStock.keySet().forEach(key -> retailerIds.add(key.retailerId()));
+        for (Stock stock : stockRepo.findAllByRetailer_IdInAndProduct_IdIn(retailerIds, byProduct.keySet())) {
+            if (byStock.containsKey(new StockKey(stock.getRetailer().getId(), stock.getProduct().getId()))) {
+                stockChanged(stock);
+            }
+        }
+        productRepo.findAllById(byProduct.keySet()).forEach(expiryEngine::update);
+    }
+
+    private MapSqlParameterSource stockParams(DeliveryRow row, LocalDateTime now) {
+        return new MapSqlParameterSource()
+                .addValue("retailerId", row.retailerId())
+                .addValue("productId", row.productId())
+                .addValue("quantity", row.quantity())
+                .addValue("minThreshold", row.minThreshold())
+                .addValue("expiryDate", row.expiryDate())
+                .addValue("updatedAt", now);
+    }
+
+    // Keeps the low-stock, expiry and barcode indexes current and tells the retailer's dashboards when a stock is low.
+    // The indexes apply their changes after commit themselves; the alert is deferred here, so a rolled-back
+    // write changes nothing in memory and alerts no one
+    private void stockChanged(Stock stock) {
+        lowStockIndex.update(stock);
+        expiryEngine.update(stock);
+        barcodeIndex.updateStock(stock);
+        if (stock.getQuantity() < stock.getMin_threshold()) {
+            LowStockDTO low = LowStockDTO.from(stock);
+            Long retailerId = stock.getRetailer().getId();
+            AfterCommit.run(() -> alertStreamService.publish(AlertEvent.Type.LOW_STOCK, low, retailerId));
+        }
     }
 
     public Stock findById(Long id) {
         return stockRepo.findStockById(id);
     }
 
+    // Deletes many of a retailer's stocks in one transaction: one UPDATE for the log references,
+    // one batch of DELETE logs and one DELETE for the stocks. Ids the retailer does not own are reported, not deleted.
+    @Transactional
+    public Map<String, Object> deleteStocks(Long retailerId, Collection<Long> stockIds) {
+        Set<Long> requested = new LinkedHashSet<>(stockIds);
+        List<Stock> stocks = stockRepo.findAllByIdInAndRetailer_Id(requested, retailerId);
+
+        List<Long> deleted = new ArrayList<>();
+        List<Logs> logs = new ArrayList<>();
+        User retailer = userDetailsService.getReference(retailerId);
+        for (Stock stock : stocks) {
+            deleted.add(stock.getId());
+            Logs log = new Logs();
+            log.setProduct(stock.getProduct());
+            log.setUser(retailer);
+            log.setMovementLog(Logs.MovementLog.DELETE);
+            log.setQuantity(stock.getQuantity());
+            logs.add(log);
+        }
+
+        if (!deleted.isEmpty()) {
+            logsService.nullifyStockReferences(deleted);
+            logsService.saveLogsNow(logs);
+            stockRepo.deleteAllByIdInBatch(deleted);
+            deleted.forEach(id -> {
+                lowStockIndex.remove(id);
+                expiryEngine.removeStock(id);
+                barcodeIndex.removeStock(id);
+            });
+        }
+
+        requested.removeAll(deleted);
+        Map<String, Object> result = new HashMap<>();
+        result.put("deleted", deleted);
+        result.put("notFound", new ArrayList<>(requested));
+        return result;
+    }
+
     // Method to update logs before stock deletion
     @Transactional
     public boolean deleteStockAndUpdateLogs(Long stockId) {
@@ -136,6 +306,9 @@ public class StockService {
 
             // Now delete the stock
             stockRepo.deleteById(stockId);
+            lowStockIndex.remove(stockId);
+            expiryEngine.removeStock(stockId);
+            barcodeIndex.removeStock(stockId);
             return true;
         } catch (Exception e) {
             e.printStackTrace();
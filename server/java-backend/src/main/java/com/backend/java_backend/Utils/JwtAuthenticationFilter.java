@@ -1,5 +1,6 @@
 package com.backend.java_backend.Utils;
 
+import com.backend.java_backend.Classes.User;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -8,7 +9,6 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
@@ -56,19 +56,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         if (token != null) {
-            if (jwtUtils.validateToken(token)) {
-                String username = jwtUtils.getUsernameFromToken(token);
-                String role = jwtUtils.getRoleFromToken(token);
+            JwtClaims claims = jwtUtils.parseToken(token);
+            if (claims != null) {
+                String username = claims.username();
+                String role = claims.role();
 
                 System.out.println("username: " + username);
                 System.out.println("role: " + role);
 
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    UserPrincipal principal = toPrincipal(claims);
 
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
-                                    userDetails,
+                                    principal,
                                     null,
                                     Collections.singletonList(new SimpleGrantedAuthority(role))
                             );
@@ -84,4 +85,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // Tokens issued before the userId claim existed still need one lookup until they expire
+    private UserPrincipal toPrincipal(JwtClaims claims) {
+        if (claims.userId() != null && claims.role() != null) {
+            return new UserPrincipal(claims.userId(), claims.username(), User.Role.valueOf(claims.role()));
+        }
+        User user = (User) userDetailsService.loadUserByUsername(claims.username());
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getRole());
+    }
 }
@@ -0,0 +1,9 @@
+package com.backend.java_backend.Utils;
+
+// Verified contents of a JWT, extracted once per token
+public record JwtClaims(Long userId, String username, String role, long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,103 @@
+package com.backend.java_backend.Utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of already verified tokens. Entries are keyed by a SHA-256 digest of the
+ * token so raw tokens are never kept in memory, and they are dropped once the token expires.
+ */
+@Component
+public class JwtClaimsCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final ConcurrentHashMap<String, JwtClaims> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final int maxEntries;
+
+    public JwtClaimsCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public JwtClaims get(String key) {
+        JwtClaims claims = entries.get(key);
+        if (claims == null) {
+            misses.increment();
+            return null;
+        }
+        if (claims.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, claims);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return claims;
+    }
+
+    public void put(String key, JwtClaims claims) {
+        if (entries.size() >= maxEntries) {
+            evict();
+        }
+        entries.put(key, claims);
+    }
+
+    // Drop expired tokens first; if that is not enough free roughly a tenth of the cache
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(claims -> claims.isExpired(now));
+        if (entries.size() < maxEntries) {
+            return;
+        }
+
+        int toRemove = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+}
@@ -4,6 +4,7 @@ import com.backend.java_backend.Classes.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -18,9 +19,13 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    @Autowired
+    private JwtClaimsCache claimsCache;
+
     public String generateToken(User user) {
         return Jwts.builder()
                 .setSubject(user.getUsername())
+                .claim("userId", user.getId())
                 .claim("role", user.getRole().name())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
@@ -28,21 +33,30 @@ public class JwtUtils {
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+    // Verifies the token once and extracts everything the filter needs; returns null if invalid
+    public JwtClaims parseToken(String token) {
+        String key = claimsCache.digest(token);
+        JwtClaims cached = claimsCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
 
-    public boolean validateToken(String token) {
+        Claims body;
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token);
-            return true;
+            body = getAllClaimsFromToken(token);
         } catch (Exception ex) {
-            return false;
+            return null;
         }
+
+        Date expiration = body.getExpiration();
+        JwtClaims claims = new JwtClaims(
+                body.get("userId", Long.class),
+                body.getSubject(),
+                body.get("role", String.class),
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE
+        );
+        claimsCache.put(key, claims);
+        return claims;
     }
 
     public Claims getAllClaimsFromToken(String token) {
@@ -51,12 +65,4 @@ public class JwtUtils {
                 .parseClaimsJws(token)
                 .getBody();
     }
-
-    public String getRoleFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
-    }
 }
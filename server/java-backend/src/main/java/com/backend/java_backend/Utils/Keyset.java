@@ -0,0 +1,75 @@
+package com.backend.java_backend.Utils;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keyset pagination for the list endpoints. A page is the rows whose id is greater than the
+ * one encoded in the cursor, in id order, so every page is an index range scan no matter how
+ * deep it is. One extra row is fetched to tell whether another page follows; if it does, its
+ * cursor is returned in the X-Next-Cursor header and the body stays a plain JSON array.
+ */
+public final class Keyset {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    private static final String PREFIX = "id:";
+
+    private Keyset() {
+    }
+
+    // Id the page starts after; 0 for the first page
+    public static long after(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Long.parseLong(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the error below
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    // Row limit for the query: the page size plus the look-ahead row
+    public static Limit limit(Integer size) {
+        return Limit.of(pageSize(size) + 1);
+    }
+
+    public static int pageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(size, MAX_LIMIT);
+    }
+
+    public static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Trims the look-ahead row, maps the page and sets the next cursor header when there is more
+    public static <T, R> ResponseEntity<List<R>> page(List<T> rows, Integer size, ToLongFunction<T> id,
+                                                      Function<T, R> mapper) {
+        int pageSize = pageSize(size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        List<T> page = rows;
+        if (rows.size() > pageSize) {
+            page = rows.subList(0, pageSize);
+            response.header(NEXT_CURSOR_HEADER, encode(id.applyAsLong(page.get(pageSize - 1))));
+        }
+        return response.body(page.stream().map(mapper).toList());
+    }
+}
@@ -0,0 +1,39 @@
+package com.backend.java_backend.Utils;
+
+import com.backend.java_backend.Classes.Order;
+import com.backend.java_backend.Classes.Request;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The legal status moves of requests and orders, keyed by target status. Transitions are applied
+ * as UPDATE ... WHERE status IN (allowed sources), so the check and the write are one statement:
+ * of two concurrent moves from the same status only one matches a row, and no lock is held.
+ */
+public final class StatusTransitions {
+
+    private static final Map<Request.Status, Set<Request.Status>> REQUEST = Map.of(
+            Request.Status.ACCEPTED, EnumSet.of(Request.Status.PENDING),
+            // Rejecting an accepted request releases its reservation; once ordered it cannot change
+            Request.Status.REJECTED, EnumSet.of(Request.Status.PENDING, Request.Status.ACCEPTED));
+
+    private static final Map<Order.Status, Set<Order.Status>> ORDER = Map.of(
+            Order.Status.PAID, EnumSet.of(Order.Status.PENDING),
+            // An order is paid before it ships and shipped before it arrives
+            Order.Status.DISPATCHED, EnumSet.of(Order.Status.PAID),
+            Order.Status.DELIVERED, EnumSet.of(Order.Status.DISPATCHED));
+
+    private StatusTransitions() {
+    }
+
+    // Statuses a request may move to target from; empty if nothing may
+    public static Set<Request.Status> from(Request.Status target) {
+        return REQUEST.getOrDefault(target, Set.of());
+    }
+
+    public static Set<Order.Status> from(Order.Status target) {
+        return ORDER.getOrDefault(target, Set.of());
+    }
+}
@@ -0,0 +1,59 @@
+package com.backend.java_backend.Utils;
+
+import com.backend.java_backend.Classes.User;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.Serializable;
+
+/**
+ * Authenticated user built straight from the JWT claims, so a request does not need
+ * to load the {@link User} row just to know who is calling.
+ */
+public class UserPrincipal implements AuthenticatedPrincipal, Serializable {
+
+    private final Long id;
+    private final String username;
+    private final User.Role role;
+
+    public UserPrincipal(Long id, String username, User.Role role) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+    }
+
+    public static UserPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            throw new IllegalStateException("No authenticated user");
+        }
+        return principal;
+    }
+
+    public static Long currentUserId() {
+        return current().getId();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal{id=" + id + ", username='" + username + "', role=" + role + '}';
+    }
+}
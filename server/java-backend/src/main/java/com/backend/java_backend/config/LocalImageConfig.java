@@ -0,0 +1,23 @@
+package com.backend.java_backend.config;
+
+import com.backend.java_backend.Services.LocalImageStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Serves the images LocalImageStorage keeps; like any other path they need a signed-in user
+@Configuration
+@ConditionalOnProperty(name = "images.storage", havingValue = "local")
+public class LocalImageConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private LocalImageStorage localImageStorage;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(localImageStorage.urlPrefix() + "/**")
+                .addResourceLocations(localImageStorage.directory().toUri().toString());
+    }
+}
@@ -3,6 +3,8 @@ package com.backend.java_backend.config;
 import com.backend.java_backend.Services.CustomUserDetailsService;
 import com.backend.java_backend.Utils.JwtAuthenticationFilter;
 import com.backend.java_backend.Utils.JwtUtils;
+import com.backend.java_backend.Utils.Keyset;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -46,11 +48,15 @@ public class SecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS) // 🔥 ADD THIS
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // alert streams are authorised on the initial request; their async dispatches carry no cookie check
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/login", "/auth/signup", "/auth/test", "/auth/logout").permitAll()
                         .requestMatchers("/auth/me").authenticated()
                         .requestMatchers("/delivery/**").hasAuthority("DELIVERY")
                         .requestMatchers("/retailer/**").hasAuthority("RETAILER")
                         .requestMatchers("/distributor/**").hasAuthority("DISTRIBUTOR")
+                        // System-wide cache, queue and import statistics; not for retailers or delivery agents
+                        .requestMatchers("/metrics/**").hasAuthority("DISTRIBUTOR")
                         .requestMatchers("/api/gemini/**").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -79,6 +85,7 @@ public class SecurityConfig {
         config.addAllowedOrigin("http://localhost:5173");
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader(Keyset.NEXT_CURSOR_HEADER);
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
     }
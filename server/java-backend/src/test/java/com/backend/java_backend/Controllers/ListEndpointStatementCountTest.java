@@ -0,0 +1,227 @@
+package com.backend.java_backend.Controllers;
+
+import com.backend.java_backend.Classes.Order;
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.Classes.Request;
+import com.backend.java_backend.Classes.Stock;
+import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.PostgresIntegrationTest;
+import com.backend.java_backend.Repos.OrderRepo;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Repos.RequestRepo;
+import com.backend.java_backend.Repos.StockRepo;
+import com.backend.java_backend.Repos.UserRepo;
+import com.backend.java_backend.Utils.UserPrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Each list endpoint must load its page and every association the view DTOs read in one SQL statement,
+ * however many rows come back. Every row gets its own product, request and retailer, so a lazy
+ * association left out of a fetch would show up as one extra statement per row.
+ */
+class ListEndpointStatementCountTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private RequestRepo requestRepo;
+    @Autowired
+    private OrderRepo orderRepo;
+    @Autowired
+    private StockRepo stockRepo;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void retailerOrders(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(get("/retailer/order/view-orders"), fixture.retailer, rows);
+        assertOneStatement(get("/retailer/order/view-order-status").param("status", "PAID"), fixture.retailer, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void distributorOrders(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(get("/distributor/order/view-orders"), fixture.distributor, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void deliveryAgentOrders(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(get("/delivery/order/view-orders"), fixture.agent, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void retailerRequests(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(get("/retailer/request/view-request"), fixture.retailer, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void distributorRequests(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(get("/distributor/request/view-requests"), fixture.distributor, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void retailerStocks(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(get("/retailer/stocks/get-stock-username"), fixture.retailer, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void productStocks(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        assertOneStatement(post("/retailer/stocks/get-stock-productId/{id}", fixture.sharedProduct.getId()),
+                fixture.retailer, rows);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 40})
+    void distributorProducts(int rows) throws Exception {
+        Fixture fixture = fixture(rows);
+        // The distributor owns one product per row plus the shared one
+        assertOneStatement(get("/distributor/product/view-products"), fixture.distributor, rows + 1);
+    }
+
+    @Test
+    void distributorProductsHidePassword() throws Exception {
+        Fixture fixture = fixture(1);
+        mockMvc.perform(as(get("/distributor/product/view-products"), fixture.distributor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].distributor.id").value(fixture.distributor.getId()))
+                .andExpect(jsonPath("$[0].distributor.password").doesNotExist());
+    }
+
+    private void assertOneStatement(MockHttpServletRequestBuilder request, User caller, int rows) throws Exception {
+        statistics.clear();
+        mockMvc.perform(as(request, caller))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(rows));
+        assertEquals(1, statistics.getPrepareStatementCount(), "SQL statements for " + rows + " row(s)");
+    }
+
+    private RequestBuilder as(MockHttpServletRequestBuilder request, User caller) {
+        return request.with(authentication(new UsernamePasswordAuthenticationToken(
+                new UserPrincipal(caller.getId(), caller.getUsername(), caller.getRole()), null,
+                List.of(new SimpleGrantedAuthority(caller.getRole().name())))));
+    }
+
+    // rows orders, each on its own request and product, plus a stock of each product for the retailer;
+    // the shared product is stocked by rows other retailers
+    private Fixture fixture(int rows) {
+        Fixture fixture = new Fixture();
+        fixture.distributor = user(User.Role.DISTRIBUTOR);
+        fixture.retailer = user(User.Role.RETAILER);
+        fixture.agent = user(User.Role.DELIVERY);
+        fixture.sharedProduct = product(fixture.distributor);
+
+        List<Stock> stocks = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Product product = product(fixture.distributor);
+
+            Request request = new Request();
+            request.setRetailer(fixture.retailer);
+            request.setDistributor(fixture.distributor);
+            request.setProduct(product);
+            request.setQuantity(i + 1);
+            request.setStatus(Request.Status.ACCEPTED);
+            request.setOrderCheck(true);
+            request = requestRepo.save(request);
+
+            Order order = new Order();
+            order.setRequest(request);
+            order.setRetailer(fixture.retailer);
+            order.setDistributor(fixture.distributor);
+            order.setProduct(product);
+            order.setQuantity(i + 1);
+            order.setStatus(Order.Status.PAID);
+            order.setDeliveryAgent(fixture.agent);
+            order.setOrderNumber("TEST-" + UUID.randomUUID());
+            orderRepo.save(order);
+
+            stocks.add(stock(fixture.retailer, product));
+            stocks.add(stock(user(User.Role.RETAILER), fixture.sharedProduct));
+        }
+        stockRepo.saveAll(stocks);
+        return fixture;
+    }
+
+    private Stock stock(User retailer, Product product) {
+        Stock stock = new Stock();
+        stock.setRetailer(retailer);
+        stock.setProduct(product);
+        stock.setQuantity(10);
+        stock.setMin_threshold(5);
+        return stock;
+    }
+
+    private User user(User.Role role) {
+        String name = role.name().toLowerCase() + "-" + UUID.randomUUID();
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@test");
+        user.setRole(role);
+        return userRepo.save(user);
+    }
+
+    private Product product(User distributor) {
+        Product product = new Product();
+        product.setName("Statement count product");
+        product.setSku("SKU-" + UUID.randomUUID());
+        product.setCategory("Test");
+        product.setQuantity(100);
+        product.setMst(5);
+        product.setDistributor(distributor);
+        return productRepo.save(product);
+    }
+
+    private static class Fixture {
+        User distributor;
+        User retailer;
+        User agent;
+        Product sharedProduct;
+    }
+}
@@ -0,0 +1,47 @@
+package com.backend.java_backend;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Base for tests that need the real database: the services rely on Postgres-only SQL (advisory locks,
+ * unnest, ON CONFLICT, partitions). A Postgres container is started once and shared by every test class.
+ * Set TEST_DATABASE_URL (with TEST_DATABASE_USERNAME and TEST_DATABASE_PASSWORD) to use an existing,
+ * disposable database instead; without either, the tests are skipped.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class PostgresIntegrationTest {
+
+    private static final String DATABASE_URL = System.getenv("TEST_DATABASE_URL");
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @BeforeAll
+    static synchronized void startDatabase() {
+        if (DATABASE_URL != null || postgres != null) {
+            return;
+        }
+        Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(),
+                "Docker is not available and TEST_DATABASE_URL is not set");
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> DATABASE_URL != null ? DATABASE_URL : postgres.getJdbcUrl());
+        registry.add("spring.datasource.username", () -> DATABASE_URL != null
+                ? System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "postgres") : postgres.getUsername());
+        registry.add("spring.datasource.password", () -> DATABASE_URL != null
+                ? System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", "") : postgres.getPassword());
+    }
+}
@@ -0,0 +1,118 @@
+package com.backend.java_backend.Services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Block rollover of the order number generator against a stubbed sequence: nextval hands out
+ * 1, 1 + increment, 1 + 2 * increment, ... the way Postgres does for a sequence created with that increment.
+ */
+class OrderNumberGeneratorBlockTest {
+
+    private static final String PREFIX = "ORD-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd")) + "-";
+
+    @Test
+    void numbersRunThroughEachBlockAndRollOverToTheNext() {
+        JdbcTemplate jdbcTemplate = sequence(3);
+        OrderNumberGenerator generator = generator(jdbcTemplate, 3);
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            numbers.add(generator.next());
+        }
+
+        assertEquals(List.of(PREFIX + "00000001", PREFIX + "00000002", PREFIX + "00000003", PREFIX + "00000004",
+                PREFIX + "00000005", PREFIX + "00000006", PREFIX + "00000007"), numbers);
+        verify(jdbcTemplate, times(3)).queryForObject("SELECT nextval('order_number_seq')", Long.class);
+        assertEquals(3L, generator.stats().get("blocksReserved"));
+        assertEquals(2L, generator.stats().get("remainingInBlock"));
+    }
+
+    @Test
+    void sequenceIncrementWinsOverConfiguredBlockSize() {
+        // A sequence created earlier with a different increment decides how many numbers a block holds
+        OrderNumberGenerator generator = generator(sequence(5), 1000);
+
+        for (int i = 1; i <= 6; i++) {
+            assertEquals(PREFIX + String.format("%08d", i), generator.next());
+        }
+        assertEquals(5L, generator.stats().get("blockSize"));
+        assertEquals(2L, generator.stats().get("blocksReserved"));
+    }
+
+    @Test
+    void concurrentCallersNeverShareANumberOrWasteABlock() throws Exception {
+        int threads = 8;
+        int perThread = 5000;
+        int increment = 100;
+        JdbcTemplate jdbcTemplate = sequence(increment);
+        OrderNumberGenerator generator = generator(jdbcTemplate, increment);
+
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        numbers.add(generator.next());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int total = threads * perThread;
+        assertEquals(total, numbers.size());
+        // Exactly one reservation per exhausted block: the numbers are 1..total with no gaps
+        assertEquals(PREFIX + String.format("%08d", total), numbers.stream().max(String::compareTo).orElseThrow());
+        verify(jdbcTemplate, times(total / increment)).queryForObject("SELECT nextval('order_number_seq')", Long.class);
+    }
+
+    private static OrderNumberGenerator generator(JdbcTemplate jdbcTemplate, int blockSize) {
+        OrderNumberGenerator generator = new OrderNumberGenerator();
+        ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(generator, "blockSize", blockSize);
+        generator.init();
+        return generator;
+    }
+
+    private static JdbcTemplate sequence(long increment) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicLong nextval = new AtomicLong(1);
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), eq("order_number_seq")))
+                .thenReturn(Long.toString(increment));
+        when(jdbcTemplate.queryForObject("SELECT nextval('order_number_seq')", Long.class))
+                .thenAnswer(invocation -> nextval.getAndAdd(increment));
+        return jdbcTemplate;
+    }
+}
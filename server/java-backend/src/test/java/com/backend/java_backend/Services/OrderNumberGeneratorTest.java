@@ -0,0 +1,86 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int PER_THREAD = 2_500;
+    private static final Pattern FORMAT = Pattern.compile("ORD-\\d{6}-\\d{8}");
+
+    @Autowired
+    private OrderNumberGenerator generator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void numbersDrawnConcurrentlyAcrossBlocksAndNodesAreUnique() throws Exception {
+        // A second instance on the same sequence stands in for another backend node
+        OrderNumberGenerator otherNode = new OrderNumberGenerator();
+        ReflectionTestUtils.setField(otherNode, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(otherNode, "blockSize", 1000);
+        otherNode.init();
+        long blocksBefore = (long) generator.stats().get("blocksReserved");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<String> numbers = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                OrderNumberGenerator node = t % 2 == 0 ? generator : otherNode;
+                Callable<List<String>> draw = () -> {
+                    start.await();
+                    List<String> drawn = new ArrayList<>(PER_THREAD);
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        drawn.add(node.next());
+                    }
+                    return drawn;
+                };
+                futures.add(pool.submit(draw));
+            }
+            start.countDown();
+            for (Future<List<String>> future : futures) {
+                numbers.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(THREADS * PER_THREAD, numbers.size());
+        Set<String> unique = new HashSet<>(numbers);
+        assertEquals(numbers.size(), unique.size(), "duplicate order numbers were issued");
+
+        String today = "ORD-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd")) + "-";
+        for (String number : numbers) {
+            assertTrue(FORMAT.matcher(number).matches(), number);
+            assertTrue(number.startsWith(today), number);
+        }
+
+        // Half the numbers came from each node, so each must have gone through several blocks
+        long blocks = (long) generator.stats().get("blocksReserved") - blocksBefore;
+        assertTrue(blocks >= THREADS * PER_THREAD / 2 / 1000, "blocks reserved: " + blocks);
+        assertTrue((long) otherNode.stats().get("blocksReserved") >= THREADS * PER_THREAD / 2 / 1000);
+    }
+}
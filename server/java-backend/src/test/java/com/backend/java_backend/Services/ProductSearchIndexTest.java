@@ -0,0 +1,83 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.DTOs.ProductSearchResultDTO;
+import com.backend.java_backend.DTOs.ProductSearchRow;
+import com.backend.java_backend.Repos.ProductRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void build() {
+        ProductRepo productRepo = mock(ProductRepo.class);
+        when(productRepo.findSearchRows()).thenReturn(List.of(
+                row(1, "Milk", "SKU-MILK-1", "4006381333931", "Dairy"),
+                row(2, "Milkshake Vanilla", "SKU-SHAKE-2", null, "Dairy"),
+                row(3, "Oat Milk", "SKU-OAT-3", null, "Vegan"),
+                row(4, "Bread", "SKU-BREAD-4", null, "Bakery"),
+                row(5, "Butter", "MILK", null, "Dairy")));
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "productRepo", productRepo);
+        index.rebuild();
+    }
+
+    @Test
+    void exactWordRanksAbovePrefixAndCodeMatchesRankFirst() {
+        // "milk" is the whole SKU of 5, a whole name word of 1 and 3, and a prefix of "milkshake" in 2
+        assertEquals(List.of(5L, 1L, 3L, 2L), ids(index.search("milk", null, 0, 10)));
+    }
+
+    @Test
+    void shorterCompletionRanksAboveLongerOne() {
+        List<ProductSearchResultDTO> hits = index.search("mil", null, 0, 10);
+        assertEquals(List.of(5L, 1L, 3L, 2L), ids(hits));
+        // Ties in score keep id order
+        assertEquals(hits.get(1).score(), hits.get(2).score());
+    }
+
+    @Test
+    void everyQueryWordHasToMatchTheName() {
+        assertEquals(List.of(3L), ids(index.search("oat milk", null, 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("milk vanilla", null, 0, 10)));
+    }
+
+    @Test
+    void typosWithinTheAllowedDistanceStillMatch() {
+        assertEquals(List.of(4L), ids(index.search("braed", null, 0, 10)));
+        List<ProductSearchResultDTO> hits = index.search("buter", null, 0, 10);
+        assertEquals(List.of(5L), ids(hits));
+        assertTrue(hits.get(0).score() < index.search("butter", null, 0, 10).get(0).score());
+    }
+
+    @Test
+    void skuAndBarcodeAreMatchedWhole() {
+        assertEquals(List.of(2L), ids(index.search("sku-shake-2", null, 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("4006381333931", null, 0, 10)));
+    }
+
+    @Test
+    void categoryFiltersAndOffsetPages() {
+        assertEquals(List.of(5L, 1L, 2L), ids(index.search("milk", "Dairy", 0, 10)));
+        assertEquals(List.of(1L, 3L), ids(index.search("milk", null, 1, 2)));
+        assertEquals(List.of(), ids(index.search("milk", null, 10, 2)));
+    }
+
+    private static List<Long> ids(List<ProductSearchResultDTO> hits) {
+        return hits.stream().map(ProductSearchResultDTO::id).toList();
+    }
+
+    private static ProductSearchRow row(long id, String name, String sku, String barcode, String category) {
+        return new ProductSearchRow(id, name, sku, barcode, category, 1L, null);
+    }
+}
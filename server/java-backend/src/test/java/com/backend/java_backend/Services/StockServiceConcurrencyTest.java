@@ -0,0 +1,172 @@
+package com.backend.java_backend.Services;
+
+import com.backend.java_backend.Classes.Order;
+import com.backend.java_backend.Classes.Product;
+import com.backend.java_backend.Classes.User;
+import com.backend.java_backend.DTOs.DeliveryRow;
+import com.backend.java_backend.PostgresIntegrationTest;
+import com.backend.java_backend.Repos.OrderRepo;
+import com.backend.java_backend.Repos.ProductRepo;
+import com.backend.java_backend.Repos.UserRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockServiceConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+    private static final int INITIAL_QUANTITY = 100_000;
+
+    @Autowired
+    private StockService stockService;
+    @Autowired
+    private UserRepo userRepo;
+    @Autowired
+    private ProductRepo productRepo;
+    @Autowired
+    private OrderRepo orderRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentDeliveriesOfOneProductAreAllCounted() throws Exception {
+        User distributor = user(User.Role.DISTRIBUTOR);
+        List<User> retailers = List.of(user(User.Role.RETAILER), user(User.Role.RETAILER));
+        Product product = product(distributor);
+
+        // Neither retailer holds the product yet, so the first deliveries race to create the stock row
+        List<Long> orderIds = new ArrayList<>();
+        int[] delivered = new int[retailers.size()];
+        for (int i = 0; i < 64; i++) {
+            int r = i % retailers.size();
+            int quantity = i + 1;
+            orderIds.add(deliveredOrder(retailers.get(r), distributor, product, quantity).getOrderId());
+            delivered[r] += quantity;
+        }
+
+        runTogether(orderIds.stream()
+                .<Callable<Void>>map(orderId -> () -> {
+                    stockService.updateRetailerStockFromOrder(orderId);
+                    return null;
+                })
+                .toList());
+
+        assertStock(retailers.get(0), product, delivered[0]);
+        assertStock(retailers.get(1), product, delivered[1]);
+        assertEquals(INITIAL_QUANTITY - delivered[0] - delivered[1], productQuantity(product));
+    }
+
+    @Test
+    void concurrentDeliveryBatchesOfOneProductAreAllCounted() throws Exception {
+        User distributor = user(User.Role.DISTRIBUTOR);
+        List<User> retailers = List.of(user(User.Role.RETAILER), user(User.Role.RETAILER), user(User.Role.RETAILER));
+        Product product = product(distributor);
+
+        // Every batch touches every retailer, in a different order each time
+        List<Callable<Void>> batches = new ArrayList<>();
+        int[] delivered = new int[retailers.size()];
+        for (int b = 0; b < 48; b++) {
+            List<DeliveryRow> batch = new ArrayList<>();
+            for (int i = 0; i < retailers.size(); i++) {
+                int r = (b + i) % retailers.size();
+                int quantity = b + i + 1;
+                batch.add(new DeliveryRow(retailers.get(r).getId(), product.getId(), quantity, 5, null));
+                delivered[r] += quantity;
+            }
+            batches.add(() -> {
+                stockService.applyDeliveries(batch);
+                return null;
+            });
+        }
+
+        runTogether(batches);
+
+        int total = 0;
+        for (int r = 0; r < retailers.size(); r++) {
+            assertStock(retailers.get(r), product, delivered[r]);
+            total += delivered[r];
+        }
+        assertEquals(INITIAL_QUANTITY - total, productQuantity(product));
+    }
+
+    // Releases every task at once on THREADS threads and rethrows the first failure
+    private void runTogether(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void assertStock(User retailer, Product product, int expected) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT count(*) AS rows, coalesce(sum(quantity), 0) AS quantity FROM stocks " +
+                "WHERE retailer_id = ? AND product_id = ?", retailer.getId(), product.getId());
+        assertEquals(1L, ((Number) row.get("rows")).longValue(), "one stock row per retailer and product");
+        assertEquals(expected, ((Number) row.get("quantity")).intValue());
+    }
+
+    private int productQuantity(Product product) {
+        Integer quantity = jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?",
+                Integer.class, product.getId());
+        assertTrue(quantity != null);
+        return quantity;
+    }
+
+    private User user(User.Role role) {
+        String name = role.name().toLowerCase() + "-" + UUID.randomUUID();
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@test");
+        user.setRole(role);
+        return userRepo.save(user);
+    }
+
+    private Product product(User distributor) {
+        Product product = new Product();
+        product.setName("Concurrency test product");
+        product.setSku("SKU-" + UUID.randomUUID());
+        product.setCategory("Test");
+        product.setQuantity(INITIAL_QUANTITY);
+        product.setMst(5);
+        product.setDistributor(distributor);
+        return productRepo.save(product);
+    }
+
+    private Order deliveredOrder(User retailer, User distributor, Product product, int quantity) {
+        Order order = new Order();
+        order.setRetailer(retailer);
+        order.setDistributor(distributor);
+        order.setProduct(product);
+        order.setQuantity(quantity);
+        order.setStatus(Order.Status.DELIVERED);
+        order.setOrderNumber("TEST-" + UUID.randomUUID());
+        return orderRepo.save(order);
+    }
+}
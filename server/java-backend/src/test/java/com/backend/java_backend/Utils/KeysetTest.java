@@ -0,0 +1,74 @@
+package com.backend.java_backend.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetTest {
+
+    @Test
+    void missingCursorStartsAtTheFirstPage() {
+        assertEquals(0, Keyset.after(null));
+        assertEquals(0, Keyset.after(""));
+        assertEquals(0, Keyset.after("  "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 42, Long.MAX_VALUE, -1})
+    void encodedCursorDecodesToTheSameId(long id) {
+        assertEquals(id, Keyset.after(Keyset.encode(id)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not base64!", "aWQ6", "aWQ6YWJj", "eDo0Mg"})
+    void malformedCursorIsRejected(String cursor) {
+        // "aWQ6" is "id:", "aWQ6YWJj" is "id:abc", "eDo0Mg" is "x:42"
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Keyset.after(cursor));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    @Test
+    void cursorIsUrlSafeWithoutPadding() {
+        String cursor = Keyset.encode(1234567);
+        assertEquals("id:1234567", new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        assertEquals(-1, cursor.indexOf('='));
+    }
+
+    @Test
+    void pageSizeFallsBackToTheDefaultAndIsCapped() {
+        assertEquals(Keyset.DEFAULT_LIMIT, Keyset.pageSize(null));
+        assertEquals(Keyset.DEFAULT_LIMIT, Keyset.pageSize(0));
+        assertEquals(Keyset.DEFAULT_LIMIT, Keyset.pageSize(-5));
+        assertEquals(10, Keyset.pageSize(10));
+        assertEquals(Keyset.MAX_LIMIT, Keyset.pageSize(Keyset.MAX_LIMIT + 1));
+        assertEquals(11, Keyset.limit(10).max());
+    }
+
+    @Test
+    void fullPageWithLookAheadRowGetsNextCursor() {
+        List<Long> rows = LongStream.rangeClosed(1, 4).boxed().toList();
+        ResponseEntity<List<Long>> page = Keyset.page(rows, 3, Long::longValue, id -> id * 10);
+
+        assertEquals(List.of(10L, 20L, 30L), page.getBody());
+        assertEquals(3, Keyset.after(page.getHeaders().getFirst(Keyset.NEXT_CURSOR_HEADER)));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        List<Long> rows = List.of(7L, 8L, 9L);
+        ResponseEntity<List<Long>> page = Keyset.page(rows, 3, Long::longValue, id -> id);
+
+        assertEquals(rows, page.getBody());
+        assertNull(page.getHeaders().getFirst(Keyset.NEXT_CURSOR_HEADER));
+    }
+}
@@ -0,0 +1,36 @@
+package com.backend.java_backend.Utils;
+
+import com.backend.java_backend.Classes.Order;
+import com.backend.java_backend.Classes.Request;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StatusTransitionsTest {
+
+    @Test
+    void ordersMoveOneStepAtATime() {
+        assertEquals(Set.of(), StatusTransitions.from(Order.Status.PENDING));
+        assertEquals(Set.of(Order.Status.PENDING), StatusTransitions.from(Order.Status.PAID));
+        assertEquals(Set.of(Order.Status.PAID), StatusTransitions.from(Order.Status.DISPATCHED));
+        assertEquals(Set.of(Order.Status.DISPATCHED), StatusTransitions.from(Order.Status.DELIVERED));
+    }
+
+    @Test
+    void noOrderStatusIsReachableFromItself() {
+        for (Order.Status status : Order.Status.values()) {
+            assertFalse(StatusTransitions.from(status).contains(status), status.name());
+        }
+    }
+
+    @Test
+    void requestsAreDecidedOnceButAcceptedOnesCanStillBeRejected() {
+        assertEquals(Set.of(), StatusTransitions.from(Request.Status.PENDING));
+        assertEquals(Set.of(Request.Status.PENDING), StatusTransitions.from(Request.Status.ACCEPTED));
+        assertEquals(Set.of(Request.Status.PENDING, Request.Status.ACCEPTED),
+                StatusTransitions.from(Request.Status.REJECTED));
+    }
+}